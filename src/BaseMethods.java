@@ -1,7 +1,8 @@
 import javax.imageio.ImageIO;
 import java.awt.*;
-import java.awt.image.BufferedImage;
+import java.awt.image.*;
 import java.io.File;
+import java.util.Hashtable;
 import java.util.Vector;
 
 /**
@@ -137,9 +138,61 @@ public class BaseMethods {
      * @return integer value of pixel
      */
     static int getPixelValue(BufferedImage image, int x, int y) {
+        //gray images of this project store the value itself, getRGB would gamma correct it
+        if (isNativeGray(image))
+            return image.getRaster().getSample(x, y, 0);
         return image.getRGB(x, y) & 0xFF;
     }
 
+    //property marking the gray images made by newGrayImage
+    private static final String NATIVE_GRAY = "ocr.nativeGray";
+
+    /**
+     * This "newGrayImage" method creates an 8 bit TYPE_BYTE_GRAY image whose samples are the gray values
+     * themselves. A gray image read from a file keeps the meaning getRGB gives it (its samples are linear, so
+     * getRGB gamma corrects them); only images made here are read as raw bytes (see isNativeGray).
+     *
+     * @param width
+     * @param height
+     * @return BufferedImage - blank gray image
+     */
+    static BufferedImage newGrayImage(int width, int height) {
+        BufferedImage blank = new BufferedImage(1, 1, BufferedImage.TYPE_BYTE_GRAY);
+        ColorModel colorModel = blank.getColorModel();
+        Hashtable<String, Object> properties = new Hashtable<String, Object>();
+        properties.put(NATIVE_GRAY, Boolean.TRUE);
+        return new BufferedImage(colorModel, colorModel.createCompatibleWritableRaster(width, height), false, properties);
+    }
+
+    /**
+     * This "isNativeGray" method tells whether an image was made by newGrayImage (or is a sub image of one),
+     * so that its samples are its gray values
+     *
+     * @param image
+     * @return boolean
+     */
+    static boolean isNativeGray(BufferedImage image) {
+        return image.getType() == BufferedImage.TYPE_BYTE_GRAY && Boolean.TRUE.equals(image.getProperty(NATIVE_GRAY));
+    }
+
+    /**
+     * This "getGrayData" method returns the backing array of an 8 bit gray image made by newGrayImage, holding
+     * one byte per pixel in row major order (index y * width + x).
+     *
+     * @param image
+     * @return byte[] of gray values, or null if the image is not such an image that owns its array
+     */
+    static byte[] getGrayData(BufferedImage image) {
+        if (!isNativeGray(image))
+            return null;
+        WritableRaster raster = image.getRaster();
+        //sub images share a larger array, so their pixels are not laid out as y * width + x
+        if (raster.getSampleModelTranslateX() != 0 || raster.getSampleModelTranslateY() != 0 || raster.getDataBuffer().getOffset() != 0
+                || ((ComponentSampleModel) raster.getSampleModel()).getScanlineStride() != image.getWidth())
+            return null;
+        return ((DataBufferByte) raster.getDataBuffer()).getData();
+    }
+
     static int[][] imageToArray(BufferedImage image) {
         int height = image.getHeight();
         int width = image.getWidth();
@@ -0,0 +1,807 @@
+import javax.imageio.ImageIO;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.FileFilter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+/**
+ *
+ * This "Benchmark" class times stages of the OCR pipeline on the license plates in the data directory,
+ * comparing the optimized methods against the implementations they replaced. Run it the same way as "Main".
+ *
+ * @author Daniel Speiser
+ * OCR Project: License Plate Reader
+ *
+ */
+public class Benchmark {
+
+    private static final String dataPath = "./DATA";
+    private static final String trainingPath = "./training";
+    private static final String featureStorePath = "./training.features";
+    //results are stored here so the JIT cannot drop the timed calls
+    private static volatile long sink;
+
+    private static File[] getFiles(File fileDirectory) {
+        File[] files = fileDirectory.listFiles(new FileFilter() {
+            @Override
+            public boolean accept(File file) {
+                return file.isFile() && !file.isHidden() && !file.getName().contains("DS_Store");
+            }
+        });
+        Arrays.sort(files);
+        return files;
+    }
+
+    /**
+     * This "time" method runs a task several times and returns the average time of one run.
+     * @param task - code to time
+     * @param repetitions - number of timed runs
+     * @return double - milliseconds per run
+     */
+    private static double time(Runnable task, int repetitions) {
+        task.run(); //warm up
+        long start = System.nanoTime();
+        for (int i = 0; i < repetitions; i++)
+            task.run();
+        return (System.nanoTime() - start) / 1e6 / repetitions;
+    }//time
+
+    /**
+     * This "benchmarkMaximumEntropy" method compares three ways of finding the maximum entropy threshold:
+     * summing entropyBackground and entropyForeground of the image for each threshold (the original method,
+     * which builds a histogram for each of the 512 calls), the same sums on one histogram (O(256^2)), and
+     * the linear time search of maximumEntropyThreshold.
+     * @param files - plate images
+     */
+    static void benchmarkMaximumEntropy(File[] files) throws Exception {
+        GrayscaleConverter gc = new GrayscaleConverter();
+        final Thresholding th = new Thresholding();
+
+        System.out.println("Maximum entropy threshold (ms per image)");
+        System.out.println(String.format("%-12s %10s %10s %13s %10s %10s %9s", "Image", "Pixels", "Per-image", "Per-histogram", "Linear", "Speedup", "Threshold"));
+        for (File file : files) {
+            BufferedImage image = ImageIO.read(file);
+            final BufferedImage grayscale = gc.toByteGray(image, GrayscaleKernel.MIN_DECOMPOSITION);
+            final int [] histogram = th.histogram(grayscale);
+
+            final int [] thresholds = new int[3];
+            double perImage = time(() -> {
+                int threshold = 0;
+                double max = th.entropyBackground(grayscale, 0) + th.entropyForeground(grayscale, 0), temp;
+                for (int i = 1; i < 256; i++) {
+                    temp = th.entropyBackground(grayscale, i) + th.entropyForeground(grayscale, i);
+                    if (temp > max) {
+                        max = temp;
+                        threshold = i;
+                    }
+                }
+                thresholds[0] = threshold;
+            }, 1);
+            double perHistogram = time(() -> {
+                int threshold = 0;
+                double max = th.entropyBackground(histogram, 0) + th.entropyForeground(histogram, 0), temp;
+                for (int i = 1; i < 256; i++) {
+                    temp = th.entropyBackground(histogram, i) + th.entropyForeground(histogram, i);
+                    if (temp > max) {
+                        max = temp;
+                        threshold = i;
+                    }
+                }
+                thresholds[1] = threshold;
+            }, 20);
+            double linear = time(() -> thresholds[2] = th.maximumEntropyThreshold(histogram), 10000);
+
+            if (thresholds[0] != thresholds[2] || thresholds[1] != thresholds[2])
+                System.err.println("Threshold mismatch for " + file.getName() + ": " + thresholds[0] + ", " + thresholds[1] + ", " + thresholds[2]);
+            sink += thresholds[2];
+            System.out.println(String.format("%-12s %10d %10.2f %13.3f %10.4f %9.0fx %9d", file.getName(), image.getWidth() * image.getHeight(),
+                    perImage, perHistogram, linear, perImage / linear, thresholds[2]));
+        }
+        System.out.println();
+    }//benchmarkMaximumEntropy
+
+    /**
+     * This "benchmarkThresholds" method times building the shared image statistics, and each threshold
+     * method that is derived from them.
+     * @param files - plate images
+     */
+    static void benchmarkThresholds(File[] files) throws Exception {
+        GrayscaleConverter gc = new GrayscaleConverter();
+        final Thresholding th = new Thresholding();
+
+        System.out.println("Threshold phase (ms per image)");
+        System.out.println(String.format("%-12s %10s %10s %10s %10s %10s %10s %10s", "Image", "Pixels", "Statistics", "Mean", "Median", "Otsu", "MaxEntropy", "MinError"));
+        for (File file : files) {
+            BufferedImage image = ImageIO.read(file);
+            final GrayImage grayscale = gc.toGrayImage(image, GrayscaleKernel.MIN_DECOMPOSITION);
+            final ImageStatistics statistics = new ImageStatistics(grayscale);
+
+            double build = time(() -> sink += new ImageStatistics(grayscale).getNumPixels(), 20);
+            double mean = time(() -> sink += (long) th.average(statistics), 10000);
+            double median = time(() -> sink += (long) th.median(statistics), 10000);
+            double otsu = time(() -> sink += th.otsuThreshold(statistics), 10000);
+            double maxEntropy = time(() -> sink += th.maximumEntropyThreshold(statistics), 10000);
+            double minError = time(() -> sink += th.minimumErrorThreshold(statistics), 10000);
+            System.out.println(String.format("%-12s %10d %10.3f %10.4f %10.4f %10.4f %10.4f %10.4f", file.getName(), grayscale.getNumPixels(),
+                    build, mean, median, otsu, maxEntropy, minError));
+        }
+        System.out.println();
+    }//benchmarkThresholds
+
+    /**
+     * This "benchmarkHistogram" method compares the original column major histogram scan with the serial
+     * and parallel row major HistogramBuilder, on each plate and on the largest plate tiled
+     * to camera still size (over 10 megapixels), where the bands are worth forking.
+     * @param files - plate images
+     */
+    static void benchmarkHistogram(File[] files) throws Exception {
+        GrayscaleConverter gc = new GrayscaleConverter();
+        final HistogramBuilder serial = new HistogramBuilder(ForkJoinPool.commonPool(), Integer.MAX_VALUE);
+        final HistogramBuilder parallel = new HistogramBuilder(ForkJoinPool.commonPool(), 0);
+
+        System.out.println("Histogram (ms per image, " + ForkJoinPool.commonPool().getParallelism() + " worker threads)");
+        System.out.println(String.format("%-12s %10s %12s %10s %10s", "Image", "Pixels", "Column-major", "Serial", "Parallel"));
+        GrayImage largest = null;
+        for (File file : files) {
+            final GrayImage grayscale = gc.toGrayImage(ImageIO.read(file), GrayscaleKernel.MIN_DECOMPOSITION);
+            if (largest == null || grayscale.getNumPixels() > largest.getNumPixels())
+                largest = grayscale;
+            printHistogramTimes(file.getName(), grayscale, serial, parallel);
+        }
+
+        printHistogramTimes("tiled", tile(largest), serial, parallel);
+        System.out.println();
+    }//benchmarkHistogram
+
+    /**
+     * This "tile" method repeats a plate up to about 5000 x 4000 pixels, the size of a camera still
+     * @param image - plate
+     * @return GrayImage - tiled plate
+     */
+    private static GrayImage tile(GrayImage image) {
+        int tilesX = Math.max(1, 5000 / image.getWidth()), tilesY = Math.max(1, 4000 / image.getHeight());
+        GrayImage still = new GrayImage(image.getWidth() * tilesX, image.getHeight() * tilesY);
+        for (int y = 0; y < still.getHeight(); y++)
+            for (int t = 0; t < tilesX; t++)
+                System.arraycopy(image.getData(), image.rowOffset(y % image.getHeight()), still.getData(), still.rowOffset(y) + t * image.getWidth(), image.getWidth());
+        return still;
+    }//tile
+
+    private static void printHistogramTimes(String name, final GrayImage grayscale, final HistogramBuilder serial, final HistogramBuilder parallel) {
+        final byte[] gray = grayscale.getData();
+        double columnMajor = time(() -> {
+            int [] histogram = new int[256];
+            for (int x = 0; x < grayscale.getWidth(); x++)
+                for (int y = 0; y < grayscale.getHeight(); y++)
+                    histogram[gray[grayscale.rowOffset(y) + x] & 0xFF]++;
+            sink += histogram[0];
+        }, 5);
+        double serialTime = time(() -> sink += serial.histogram(grayscale)[0], 5);
+        double parallelTime = time(() -> sink += parallel.histogram(grayscale)[0], 5);
+        System.out.println(String.format("%-12s %10d %12.3f %10.3f %10.3f", name, grayscale.getNumPixels(), columnMajor, serialTime, parallelTime));
+    }//printHistogramTimes
+
+    /**
+     * This "randomImages" method makes binary images of random sizes and densities, the same ones for a seed,
+     * for the labellers to be checked on shapes the plates do not have (specks, diagonal chains, noise)
+     * @param seed - random seed
+     * @param count - number of images
+     * @return BinaryImage[] - random images
+     */
+    private static BinaryImage[] randomImages(long seed, int count) {
+        Random random = new Random(seed);
+        BinaryImage[] images = new BinaryImage[count];
+        for (int i = 0; i < count; i++) {
+            BinaryImage image = new BinaryImage(1 + random.nextInt(200), 1 + random.nextInt(60));
+            int density = 2 + random.nextInt(4);
+            for (int y = 0; y < image.getHeight(); y++)
+                for (int x = 0; x < image.getWidth(); x++)
+                    image.set(x, y, random.nextInt(density) != 0);
+            images[i] = image;
+        }
+        return images;
+    }//randomImages
+
+    /**
+     * This "floodFill" method labels the 8 connected components of a binary image, foreground and background,
+     * with a breadth first flood fill from the first unlabelled pixel in raster order, which numbers them in
+     * order of first appearance like ConnectedComponents. It is the reference the labellers are checked against.
+     * @param image - binary image
+     * @return int[] - labels, y * width + x
+     */
+    private static int[] floodFill(BinaryImage image) {
+        int width = image.getWidth(), height = image.getHeight();
+        int[] labels = new int[width * height];
+        Arrays.fill(labels, -1);
+        int[] queue = new int[width * height];
+        int numLabels = 0;
+        for (int i = 0; i < labels.length; i++) {
+            if (labels[i] >= 0)
+                continue;
+            boolean value = image.get(i % width, i / width);
+            int head = 0, tail = 0;
+            queue[tail++] = i;
+            labels[i] = numLabels;
+            while (head < tail) {
+                int pixel = queue[head++];
+                for (int y = Math.max(0, pixel / width - 1); y <= Math.min(height - 1, pixel / width + 1); y++) {
+                    for (int x = Math.max(0, pixel % width - 1); x <= Math.min(width - 1, pixel % width + 1); x++) {
+                        if (labels[y * width + x] < 0 && image.get(x, y) == value) {
+                            labels[y * width + x] = numLabels;
+                            queue[tail++] = y * width + x;
+                        }
+                    }//for 2
+                }//for 1
+            }//while
+            numLabels++;
+        }
+        return labels;
+    }//floodFill
+
+    /**
+     * This "sameAsFloodFill" method checks the pixel labeller against the flood fill
+     * @return boolean - whether the labels are identical
+     */
+    private static boolean sameAsFloodFill(ConnectedComponents cc, BinaryImage image) {
+        return Arrays.equals(floodFill(image), cc.getConnectedComponents(image).getLabels());
+    }//sameAsFloodFill
+
+    /**
+     * This "sameRuns" method checks the run labeller against the foreground components of the pixel labeller,
+     * renumbered in order of first appearance, including the area and bounding box of each component
+     * @return boolean - whether the components are identical
+     */
+    private static boolean sameRuns(ConnectedComponents cc, BinaryImage image) {
+        int width = image.getWidth();
+        int[] pixelLabels = cc.getConnectedComponents(image).getLabels();
+        RunComponents components = cc.getConnectedComponents(RunLengthEncoding.encode(image));
+        int[] runLabels = components.toLabelImage().getLabels();
+
+        //component of each pixel label (background 0, foreground 1, 2, ...), area and bounds of each component
+        int[] componentOf = new int[pixelLabels.length + 1];
+        int numComponents = 0;
+        int[] area = new int[pixelLabels.length + 1];
+        int[] minX = new int[area.length], minY = new int[area.length], maxX = new int[area.length], maxY = new int[area.length];
+        for (int i = 0; i < pixelLabels.length; i++) {
+            int x = i % width, y = i / width;
+            if (!image.get(x, y)) {
+                if (runLabels[i] != 0)
+                    return false;
+                continue;
+            }
+            if (componentOf[pixelLabels[i]] == 0) {
+                componentOf[pixelLabels[i]] = ++numComponents;
+                minX[numComponents] = x;
+                minY[numComponents] = y;
+            }
+            int c = componentOf[pixelLabels[i]];
+            if (runLabels[i] != c)
+                return false;
+            area[c]++;
+            minX[c] = Math.min(minX[c], x);
+            maxX[c] = Math.max(maxX[c], x);
+            maxY[c] = Math.max(maxY[c], y);
+        }//for
+        if (numComponents != components.getNumComponents())
+            return false;
+        for (int c = 1; c <= numComponents; c++) {
+            if (components.area(c - 1) != area[c]
+                    || !components.getBounds(c - 1).equals(new Rectangle(minX[c], minY[c], maxX[c] - minX[c] + 1, maxY[c] - minY[c] + 1)))
+                return false;
+        }
+        return true;
+    }//sameRuns
+
+    /**
+     * This "benchmarkConnectedComponents" method compares labelling the voted binary image of each plate pixel
+     * by pixel with labelling its foreground runs (including the time to encode them). "Identical" is whether
+     * the pixel labels are those of a breadth first flood fill, and the run components the foreground of the
+     * pixel labels; the same checks are run on random images.
+     * @param files - plate images
+     */
+    static void benchmarkConnectedComponents(File[] files) throws Exception {
+        GrayscaleConverter gc = new GrayscaleConverter();
+        Thresholding th = new Thresholding();
+        final ConnectedComponents cc = new ConnectedComponents();
+
+        System.out.println("Connected components (ms per image)");
+        System.out.println(String.format("%-12s %10s %10s %10s %10s %10s %10s", "Image", "Pixels", "Runs", "Components", "Per-pixel", "Per-run",
+                "Identical"));
+        for (File file : files) {
+            GrayImage grayscale = gc.toGrayImage(ImageIO.read(file), GrayscaleKernel.MIN_DECOMPOSITION);
+            ImageStatistics statistics = new ImageStatistics(grayscale);
+            final BinaryImage binary = th.votingSystem(grayscale, statistics, Thresholder.MAXIMUM_ENTROPY, Thresholder.MEAN,
+                    Thresholder.OTSU, Thresholder.MEDIAN, Thresholder.fixed(127), Thresholder.MINIMUM_ERROR);
+
+            double perPixel = time(() -> sink += cc.getConnectedComponents(binary).getNumLabels(), 10);
+            double perRun = time(() -> sink += cc.getConnectedComponents(RunLengthEncoding.encode(binary)).getNumComponents(), 10);
+            RunComponents components = cc.getConnectedComponents(RunLengthEncoding.encode(binary));
+            System.out.println(String.format("%-12s %10d %10d %10d %10.3f %10.3f %10s", file.getName(), grayscale.getNumPixels(),
+                    components.getRuns().getNumRuns(), components.getNumComponents(), perPixel, perRun,
+                    sameAsFloodFill(cc, binary) && sameRuns(cc, binary)));
+        }
+        int mismatches = 0;
+        BinaryImage[] random = randomImages(11, 500);
+        for (BinaryImage image : random) {
+            if (!sameAsFloodFill(cc, image) || !sameRuns(cc, image))
+                mismatches++;
+        }
+        System.out.println("Random images: " + mismatches + " mismatches in " + random.length);
+        System.out.println();
+    }//benchmarkConnectedComponents
+
+    /**
+     * This "benchmarkParallelConnectedComponents" method times the parallel strip labelling of the voted binary
+     * image of the largest plate, tiled to camera still size, on pools of 1 up to the number of processors.
+     * "Identical" is whether the labels are exactly those of the serial labeller. The strip borders are where
+     * the parallel labeller can go wrong, so every plate and the seeded random images are also labelled with 1
+     * to 12 strips and checked the same way.
+     * @param files - plate images
+     */
+    static void benchmarkParallelConnectedComponents(File[] files) throws Exception {
+        GrayscaleConverter gc = new GrayscaleConverter();
+        Thresholding th = new Thresholding();
+        final ConnectedComponents cc = new ConnectedComponents();
+
+        GrayImage largest = null;
+        BinaryImage[] images = randomImages(14, 500 + files.length);
+        for (int i = 0; i < files.length; i++) {
+            GrayImage grayscale = gc.toGrayImage(ImageIO.read(files[i]), GrayscaleKernel.MIN_DECOMPOSITION);
+            if (largest == null || grayscale.getNumPixels() > largest.getNumPixels())
+                largest = grayscale;
+            images[500 + i] = votedBinary(files[i]);
+        }
+        GrayImage still = tile(largest);
+        final BinaryImage binary = th.votingSystem(still, new ImageStatistics(still), Thresholder.MAXIMUM_ENTROPY, Thresholder.MEAN,
+                Thresholder.OTSU, Thresholder.MEDIAN, Thresholder.fixed(127), Thresholder.MINIMUM_ERROR);
+
+        System.out.println("Parallel connected components, " + still.getWidth() + " x " + still.getHeight() + " (ms per image)");
+        System.out.println(String.format("%-8s %10s %10s %10s", "Threads", "Time", "Speedup", "Identical"));
+        double serial = time(() -> sink += cc.getConnectedComponents(binary).getNumLabels(), 3);
+        LabelImage serialLabels = cc.getConnectedComponents(binary);
+        System.out.println(String.format("%-8s %10.2f %10s %10s", "serial", serial, "", ""));
+        for (int threads = 1; threads <= Runtime.getRuntime().availableProcessors(); threads++) {
+            final ForkJoinPool pool = new ForkJoinPool(threads);
+            double parallel = time(() -> sink += cc.getConnectedComponents(binary, pool).getNumLabels(), 3);
+            LabelImage parallelLabels = cc.getConnectedComponents(binary, pool);
+            pool.shutdown();
+            System.out.println(String.format("%-8d %10.2f %9.2fx %10s", threads, parallel, serial / parallel,
+                    parallelLabels.getNumLabels() == serialLabels.getNumLabels() && Arrays.equals(parallelLabels.getLabels(), serialLabels.getLabels())));
+        }
+
+        int mismatches = 0;
+        ForkJoinPool pool = new ForkJoinPool(Math.min(4, Runtime.getRuntime().availableProcessors()));
+        for (BinaryImage image : images) {
+            LabelImage expected = cc.getConnectedComponents(image);
+            for (int numStrips = 1; numStrips <= 12; numStrips++) {
+                LabelImage labels = cc.getConnectedComponents(image, pool, numStrips);
+                if (labels.getNumLabels() != expected.getNumLabels() || !Arrays.equals(labels.getLabels(), expected.getLabels()))
+                    mismatches++;
+            }
+        }
+        pool.shutdown();
+        System.out.println("Plates and random images, 1 to 12 strips: " + mismatches + " mismatches in " + images.length * 12);
+        System.out.println();
+    }//benchmarkParallelConnectedComponents
+
+    /**
+     * This "benchmarkStreamingComponents" method compares labelling the foreground runs of the voted binary image
+     * of each plate (including the time to encode them) with streaming its rows through a
+     * StreamingComponentLabeller. "Identical" is whether the streamed components are those of the run labeller,
+     * pixel for pixel, handed out with ids 0, 1, 2, ... as they finish; the same check is run on the gray rows of
+     * each plate thresholded on the way in, and on random images.
+     * @param files - plate images
+     */
+    static void benchmarkStreamingComponents(File[] files) throws Exception {
+        GrayscaleConverter gc = new GrayscaleConverter();
+        Thresholding th = new Thresholding();
+        final ConnectedComponents cc = new ConnectedComponents();
+
+        System.out.println("Streaming connected components (ms per image)");
+        System.out.println(String.format("%-12s %10s %10s %10s %10s %10s", "Image", "Pixels", "Components", "Per-run", "Streaming", "Identical"));
+        int mismatches = 0;
+        for (File file : files) {
+            final BinaryImage binary = votedBinary(file);
+            double perRun = time(() -> sink += cc.getConnectedComponents(RunLengthEncoding.encode(binary)).getNumComponents(), 10);
+            double streaming = time(() -> StreamingComponentLabeller.label(binary, region -> sink += region.getArea()), 10);
+            ArrayList<ComponentRegion> regions = stream(binary);
+            System.out.println(String.format("%-12s %10d %10d %10.3f %10.3f %10s", file.getName(), binary.getWidth() * binary.getHeight(),
+                    regions.size(), perRun, streaming, sameRegions(cc, binary, regions)));
+
+            //the same plate, thresholded row by row on the way in
+            GrayImage grayscale = gc.toGrayImage(ImageIO.read(file), GrayscaleKernel.MIN_DECOMPOSITION);
+            int threshold = (int) new ImageStatistics(grayscale).getMean();
+            final ArrayList<ComponentRegion> grayRegions = new ArrayList<ComponentRegion>();
+            StreamingComponentLabeller labeller = new StreamingComponentLabeller(grayscale.getWidth(), grayRegions::add);
+            for (int y = 0; y < grayscale.getHeight(); y++)
+                labeller.addRow(grayscale.getData(), grayscale.rowOffset(y), threshold);
+            labeller.finish();
+            if (!sameRegions(cc, th.grayToBinary(grayscale, threshold), grayRegions))
+                mismatches++;
+        }
+        BinaryImage[] random = randomImages(15, 500);
+        for (BinaryImage image : random) {
+            if (!sameRegions(cc, image, stream(image)))
+                mismatches++;
+        }
+        System.out.println("Thresholded gray rows and random images: " + mismatches + " mismatches in " + (files.length + random.length));
+        System.out.println();
+    }//benchmarkStreamingComponents
+
+    /**
+     * This "stream" method streams a binary image through a StreamingComponentLabeller
+     * @return ArrayList<ComponentRegion> - components in the order they finished
+     */
+    private static ArrayList<ComponentRegion> stream(BinaryImage image) {
+        final ArrayList<ComponentRegion> regions = new ArrayList<ComponentRegion>();
+        StreamingComponentLabeller.label(image, regions::add);
+        return regions;
+    }//stream
+
+    /**
+     * This "sameRegions" method checks streamed components against the run labeller: the k-th component must
+     * have id k, and each must cover exactly the pixels of one run component, with its area, bounding box and
+     * number of runs
+     * @return boolean - whether the components are identical
+     */
+    private static boolean sameRegions(ConnectedComponents cc, BinaryImage image, ArrayList<ComponentRegion> regions) {
+        RunComponents components = cc.getConnectedComponents(RunLengthEncoding.encode(image));
+        if (regions.size() != components.getNumComponents())
+            return false;
+        int width = image.getWidth();
+        int[] runLabels = components.toLabelImage().getLabels();
+        int[] componentOf = new int[regions.size()];
+        boolean[] matched = new boolean[regions.size()];
+        int[] painted = new int[runLabels.length];
+        for (int k = 0; k < regions.size(); k++) {
+            ComponentRegion region = regions.get(k);
+            if (region.getId() != k || region.getNumRuns() == 0)
+                return false;
+            componentOf[k] = runLabels[region.getRunRow(0) * width + region.getRunStart(0)] - 1;
+            if (componentOf[k] < 0 || matched[componentOf[k]])
+                return false;
+            matched[componentOf[k]] = true;
+            int c = componentOf[k];
+            if (region.getArea() != components.area(c) || !region.getBounds().equals(components.getBounds(c))
+                    || region.getNumRuns() != components.getNumRuns(c))
+                return false;
+            for (int i = 0; i < region.getNumRuns(); i++) {
+                for (int x = region.getRunStart(i); x < region.getRunEnd(i); x++)
+                    painted[region.getRunRow(i) * width + x] = k + 1;
+            }
+        }//for
+        for (int i = 0; i < runLabels.length; i++) {
+            if (runLabels[i] == 0 ? painted[i] != 0 : painted[i] == 0 || componentOf[painted[i] - 1] != runLabels[i] - 1)
+                return false;
+        }
+        return true;
+    }//sameRegions
+
+    /**
+     * This "benchmarkComponentStatistics" method compares labelling the voted binary image of each plate alone
+     * with labelling and measuring it in one pass (measureComponents), measuring an existing label image, and
+     * measuring the foreground from its runs. "Identical" is whether all three agree with a brute force scan of
+     * the labels (area, bounding box, first pixel, foreground flag, perimeter, and the raw moments up to order 3
+     * to a relative 1e-9); the same check is run on random images.
+     * @param files - plate images
+     */
+    static void benchmarkComponentStatistics(File[] files) throws Exception {
+        final ConnectedComponents cc = new ConnectedComponents();
+
+        System.out.println("Component statistics (ms per image)");
+        System.out.println(String.format("%-12s %10s %10s %10s %10s %11s %10s %10s", "Image", "Pixels", "Components", "Labels",
+                "Measured", "From-labels", "From-runs", "Identical"));
+        for (File file : files) {
+            final BinaryImage binary = votedBinary(file);
+            final LabelImage labels = cc.getConnectedComponents(binary);
+            final RunComponents runs = cc.getConnectedComponents(RunLengthEncoding.encode(binary));
+            double labelling = time(() -> sink += cc.getConnectedComponents(binary).getNumLabels(), 10);
+            double measured = time(() -> sink += cc.measureComponents(binary).getNumComponents(), 10);
+            double fromLabels = time(() -> sink += new ComponentStatistics(labels, binary).getNumComponents(), 10);
+            double fromRuns = time(() -> sink += ComponentStatistics.fromRuns(runs).getNumComponents(), 10);
+            System.out.println(String.format("%-12s %10d %10d %10.3f %10.3f %11.3f %10.3f %10s", file.getName(), binary.getWidth() * binary.getHeight(),
+                    labels.getNumLabels(), labelling, measured, fromLabels, fromRuns, sameStatistics(cc, binary)));
+        }
+        int mismatches = 0;
+        BinaryImage[] random = randomImages(16, 500);
+        for (BinaryImage image : random) {
+            if (!sameStatistics(cc, image))
+                mismatches++;
+        }
+        System.out.println("Random images: " + mismatches + " mismatches in " + random.length);
+        System.out.println();
+    }//benchmarkComponentStatistics
+
+    /**
+     * This "sameStatistics" method measures every component of a binary image by brute force, a pixel at a
+     * time, and checks measureComponents, the statistics of its label image, and (for the foreground
+     * components, in order) the statistics of its runs against it
+     * @return boolean - whether the statistics agree
+     */
+    private static boolean sameStatistics(ConnectedComponents cc, BinaryImage image) {
+        ComponentStatistics measured = cc.measureComponents(image);
+        LabelImage labels = measured.getLabelImage();
+        if (!Arrays.equals(labels.getLabels(), cc.getConnectedComponents(image).getLabels()))
+            return false;
+        int width = image.getWidth(), height = image.getHeight(), n = labels.getNumLabels();
+        int[] pixelLabels = labels.getLabels();
+
+        int[] area = new int[n], perimeter = new int[n], first = new int[n];
+        int[] minX = new int[n], minY = new int[n], maxX = new int[n], maxY = new int[n];
+        double[][] moments = new double[16][n];
+        Arrays.fill(first, -1);
+        for (int i = 0; i < pixelLabels.length; i++) {
+            int c = pixelLabels[i], x = i % width, y = i / width;
+            if (first[c] < 0) {
+                first[c] = i;
+                minX[c] = x;
+                minY[c] = y;
+            }
+            area[c]++;
+            minX[c] = Math.min(minX[c], x);
+            maxX[c] = Math.max(maxX[c], x);
+            maxY[c] = Math.max(maxY[c], y);
+            //crack perimeter: sides not shared with a pixel of the same component
+            if (x == 0 || pixelLabels[i - 1] != c) perimeter[c]++;
+            if (x == width - 1 || pixelLabels[i + 1] != c) perimeter[c]++;
+            if (y == 0 || pixelLabels[i - width] != c) perimeter[c]++;
+            if (y == height - 1 || pixelLabels[i + width] != c) perimeter[c]++;
+            for (int p = 0; p <= 3; p++)
+                for (int q = 0; p + q <= 3; q++)
+                    moments[p * 4 + q][c] += Math.pow(x, p) * Math.pow(y, q);
+        }//for
+
+        ComponentStatistics fromLabels = new ComponentStatistics(labels, image);
+        ComponentStatistics fromRuns = ComponentStatistics.fromRuns(cc.getConnectedComponents(RunLengthEncoding.encode(image)));
+        if (measured.getNumComponents() != n || fromLabels.getNumComponents() != n)
+            return false;
+        int k = 0; //foreground component k of the runs
+        for (int c = 0; c < n; c++) {
+            boolean foreground = image.get(first[c] % width, first[c] / width);
+            ComponentStatistics[] statistics = foreground ? new ComponentStatistics[] {measured, fromLabels, fromRuns}
+                    : new ComponentStatistics[] {measured, fromLabels};
+            for (int s = 0; s < statistics.length; s++) {
+                int label = s == 2 ? k : c;
+                if (label >= statistics[s].getNumComponents())
+                    return false;
+                if (statistics[s].getArea(label) != area[c] || statistics[s].getPerimeter(label) != perimeter[c]
+                        || statistics[s].getFirstPixel(label) != first[c] || statistics[s].isForeground(label) != foreground
+                        || statistics[s].getMinX(label) != minX[c] || statistics[s].getMinY(label) != minY[c]
+                        || statistics[s].getMaxX(label) != maxX[c] || statistics[s].getMaxY(label) != maxY[c])
+                    return false;
+                for (int p = 0; p <= 3; p++) {
+                    for (int q = 0; p + q <= 3; q++) {
+                        double expected = moments[p * 4 + q][c];
+                        if (Math.abs(statistics[s].getMoment(label, p, q) - expected) > 1e-9 * Math.max(1, Math.abs(expected)))
+                            return false;
+                    }
+                }
+            }//for 2
+            if (foreground)
+                k++;
+        }//for 1
+        return k == fromRuns.getNumComponents();
+    }//sameStatistics
+
+    /**
+     * This "votedBinary" method runs the pipeline of "Main" up to the voted binary image of a plate
+     * @param file - plate image
+     * @return BinaryImage - voted binary image
+     */
+    private static BinaryImage votedBinary(File file) throws Exception {
+        GrayImage grayscale = new GrayscaleConverter().toGrayImage(ImageIO.read(file), GrayscaleKernel.MIN_DECOMPOSITION);
+        return new Thresholding().votingSystem(grayscale, new ImageStatistics(grayscale), Thresholder.MAXIMUM_ENTROPY, Thresholder.MEAN,
+                Thresholder.OTSU, Thresholder.MEDIAN, Thresholder.fixed(127), Thresholder.MINIMUM_ERROR);
+    }//votedBinary
+
+    /**
+     * This "benchmarkConvexHull" method compares Measurements.quickHull with the monotone chain ConvexHull, on all
+     * the pixels and on the row extremes only, on the character components of each plate (those kept by the
+     * default ComponentFilter).
+     * @param files - plate images
+     */
+    static void benchmarkConvexHull(File[] files) throws Exception {
+        ConnectedComponents cc = new ConnectedComponents();
+
+        System.out.println("Convex hull of the characters (ms per plate)");
+        System.out.println(String.format("%-12s %10s %10s %10s %10s %10s %10s", "Image", "Characters", "Pixels", "QuickHull", "Monotone", "Rows",
+                "Speedup"));
+        for (File file : files) {
+            BinaryImage binary = votedBinary(file);
+            ComponentStatistics components = cc.measureComponents(binary);
+            final int [] characters = new ComponentFilter().filter(components, binary.getWidth(), binary.getHeight()).getKept();
+            final ComponentPixelIndex index = ComponentPixelIndex.build(components.getLabelImage(), characters);
+
+            double quickHull = time(() -> {
+                for (int c = 0; c < characters.length; c++)
+                    sink += Measurements.quickHull(index, c).size();
+            }, 20);
+            double monotone = time(() -> {
+                for (int c = 0; c < characters.length; c++)
+                    sink += ConvexHull.of(index, c).getNumVertices();
+            }, 20);
+            double rows = time(() -> {
+                for (int c : characters)
+                    sink += Measurements.convexHull(components, c).getNumVertices();
+            }, 20);
+            System.out.println(String.format("%-12s %10d %10d %10.3f %10.3f %10.3f %9.1fx", file.getName(), characters.length,
+                    index.getStart(characters.length), quickHull, monotone, rows, quickHull / rows));
+        }
+        System.out.println();
+    }//benchmarkConvexHull
+
+    /**
+     * This "benchmarkMeasurementStage" method extracts the features of every foreground component of all the plates
+     * as one batch, with a serial FeatureExtractor and with the MeasurementStage on 1 to N threads, and checks
+     * that the feature matrices are identical.
+     * @param files - plate images
+     */
+    static void benchmarkMeasurementStage(File[] files) throws Exception {
+        ConnectedComponents cc = new ConnectedComponents();
+        final ComponentStatistics [] plates = new ComponentStatistics[files.length];
+        final int [][] components = new int[files.length][];
+        int numComponents = 0;
+        for (int p = 0; p < files.length; p++) {
+            plates[p] = cc.measureComponents(votedBinary(files[p]));
+            components[p] = new int[plates[p].getNumComponents()];
+            int n = 0;
+            for (int c = 0; c < plates[p].getNumComponents(); c++) {
+                if (plates[p].isForeground(c))
+                    components[p][n++] = c;
+            }
+            components[p] = Arrays.copyOf(components[p], n);
+            numComponents += n;
+        }
+
+        System.out.println("Features of " + numComponents + " components of " + files.length + " plates (ms per batch)");
+        System.out.println(String.format("%-8s %10s %10s %10s", "Threads", "Time", "Speedup", "Identical"));
+        final FeatureExtractor extractor = new FeatureExtractor();
+        final double [][] serialFeatures = new double[files.length][];
+        Runnable serialTask = () -> {
+            for (int p = 0; p < plates.length; p++)
+                serialFeatures[p] = extractor.extract(plates[p], components[p], serialFeatures[p]);
+        };
+        time(serialTask, 20); //the extractor takes more than one batch to be compiled
+        double serial = time(serialTask, 20);
+        System.out.println(String.format("%-8s %10.2f %10s %10s", "serial", serial, "", ""));
+        for (int threads = 1; threads <= Runtime.getRuntime().availableProcessors(); threads++) {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            final MeasurementStage stage = new MeasurementStage(pool, 4, 4, MeasurementStage.DEFAULT_CHUNK_AREA);
+            final double [][][] features = new double[1][][];
+            double parallel = time(() -> features[0] = stage.measure(plates, components, features[0]), 20);
+            pool.shutdown();
+            System.out.println(String.format("%-8d %10.2f %9.2fx %10s", threads, parallel, serial / parallel,
+                    Arrays.deepEquals(serialFeatures, features[0])));
+        }
+        System.out.println();
+    }//benchmarkMeasurementStage
+
+    /**
+     * This "benchmarkClassifier" method finds the 3 nearest training characters of every foreground component of
+     * all the plates, by scanning a HashMap of label to double[] features (what Training used to return), and by
+     * one batch call of CharacterClassifier over its flat float matrix.
+     * @param files - plate images
+     */
+    static void benchmarkClassifier(File[] files) throws Exception {
+        ConnectedComponents cc = new ConnectedComponents();
+        FeatureExtractor extractor = new FeatureExtractor();
+        final FeatureStore store = FeatureStore.open(new File(featureStorePath), getFiles(new File(trainingPath)), extractor);
+        final CharacterClassifier classifier = new CharacterClassifier(store);
+        final int numFeatures = store.getNumFeatures();
+
+        //normalised features of every foreground component
+        double [] features = new double[0];
+        int numQueries = 0;
+        for (File file : files) {
+            ComponentStatistics components = cc.measureComponents(votedBinary(file));
+            int [] foreground = new int[components.getNumComponents()];
+            int n = 0;
+            for (int c = 0; c < components.getNumComponents(); c++) {
+                if (components.isForeground(c))
+                    foreground[n++] = c;
+            }
+            double [] plate = extractor.extract(components, Arrays.copyOf(foreground, n), null);
+            features = Arrays.copyOf(features, (numQueries + n) * numFeatures);
+            System.arraycopy(plate, 0, features, numQueries * numFeatures, n * numFeatures);
+            numQueries += n;
+        }
+        final float [] queries = new float[numQueries * numFeatures];
+        for (int q = 0; q < numQueries; q++)
+            store.normalise(features, q * numFeatures, queries, q * numFeatures);
+        final int batch = numQueries;
+
+        final HashMap<String, double[]> trainingSet = new HashMap<String, double[]>();
+        for (int s = 0; s < store.getNumSamples(); s++) {
+            double [] row = new double[numFeatures];
+            for (int f = 0; f < numFeatures; f++)
+                row[f] = store.getFeature(s, f);
+            trainingSet.put(store.getLabel(s), row);
+        }
+
+        System.out.println("3 nearest of " + batch + " components among " + store.getNumSamples() + " characters (ms per batch)");
+        System.out.println(String.format("%-12s %10s %10s", "HashMap", "Flat", "Speedup"));
+        double map = time(() -> {
+            for (int q = 0; q < batch; q++) {
+                String [] nearest = new String[3];
+                double [] distances = {Double.MAX_VALUE, Double.MAX_VALUE, Double.MAX_VALUE};
+                for (String label : trainingSet.keySet()) {
+                    double [] row = trainingSet.get(label);
+                    double distance = 0;
+                    for (int f = 0; f < numFeatures; f++) {
+                        double d = queries[q * numFeatures + f] - row[f];
+                        distance += d * d;
+                    }
+                    for (int i = 0; i < 3; i++) {
+                        if (distance < distances[i]) {
+                            for (int j = 2; j > i; j--) {
+                                distances[j] = distances[j - 1];
+                                nearest[j] = nearest[j - 1];
+                            }
+                            distances[i] = distance;
+                            nearest[i] = label;
+                            break;
+                        }
+                    }
+                }
+                sink += nearest[0].length();
+            }
+        }, 20);
+        double flat = time(() -> sink += classifier.classify(queries, batch, 3).getText().length(), 20);
+        System.out.println(String.format("%-12.3f %10.3f %9.1fx", map, flat, map / flat));
+        System.out.println();
+    }//benchmarkClassifier
+
+    /**
+     * This "benchmarkRecognizers" method reads the characters of each plate (those kept by the default
+     * ComponentFilter, left to right) with the feature engine and with the template engine.
+     * @param files - plate images
+     */
+    static void benchmarkRecognizers(File[] files) throws Exception {
+        ConnectedComponents cc = new ConnectedComponents();
+        File[] trainingFiles = getFiles(new File(trainingPath));
+        final CharacterRecognizer features = new CharacterClassifier(
+                FeatureStore.open(new File(featureStorePath), trainingFiles, new FeatureExtractor())).centroids();
+        final CharacterRecognizer templates = new TemplateMatcher(Training.buildTemplates(trainingFiles), 1);
+
+        System.out.println("Character recognition (us per plate)");
+        System.out.println(String.format("%-12s %10s %10s %10s %10s", "Image", "Features", "Text", "Templates", "Text"));
+        for (File file : files) {
+            BinaryImage binary = votedBinary(file);
+            final ComponentStatistics components = cc.measureComponents(binary);
+            final int [] characters = new ComponentFilter().filter(components, binary.getWidth(), binary.getHeight()).getKept();
+            Integer [] order = new Integer[characters.length];
+            for (int i = 0; i < characters.length; i++)
+                order[i] = characters[i];
+            Arrays.sort(order, (a, b) -> components.getMinX(a) - components.getMinX(b));
+            for (int i = 0; i < characters.length; i++)
+                characters[i] = order[i];
+
+            double featureTime = time(() -> sink += features.recognize(components, characters, 3).getNumQueries(), 200);
+            double templateTime = time(() -> sink += templates.recognize(components, characters, 3).getNumQueries(), 200);
+            System.out.println(String.format("%-12s %10.1f %10s %10.1f %10s", file.getName(), featureTime * 1000,
+                    features.recognize(components, characters, 1).getText(), templateTime * 1000,
+                    templates.recognize(components, characters, 1).getText()));
+        }
+        System.out.println();
+    }//benchmarkRecognizers
+
+    public static void main(String[] args) throws Exception {
+        File[] dataFiles = getFiles(new File(dataPath));
+
+        benchmarkMaximumEntropy(dataFiles);
+        benchmarkThresholds(dataFiles);
+        benchmarkHistogram(dataFiles);
+        benchmarkConnectedComponents(dataFiles);
+        benchmarkParallelConnectedComponents(dataFiles);
+        benchmarkStreamingComponents(dataFiles);
+        benchmarkComponentStatistics(dataFiles);
+        benchmarkConvexHull(dataFiles);
+        benchmarkMeasurementStage(dataFiles);
+        benchmarkClassifier(dataFiles);
+        benchmarkRecognizers(dataFiles);
+    }//main
+}//Benchmark
@@ -0,0 +1,143 @@
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+
+/**
+ * The "BinaryImage" class is a monochrome image packed 64 pixels to a long. Each row takes "stride" longs,
+ * starting at index rowOffset(y) of the word array, and pixel x of a row is bit (x & 63) of word (x >> 6).
+ * A set bit is a foreground (black) pixel, a clear bit is background (white), which matches the 1/0 values
+ * of BaseMethods.imageToArray. Bits past the width of a row are always clear.
+ *
+ * @author Daniel Speiser
+ * OCR Project: License Plate Reader
+ *
+ */
+public class BinaryImage {
+    private final int width;
+    private final int height;
+    private final int stride;
+    private final long[] words;
+
+    /**
+     * Creates a new, all background binary image.
+     * @param width - image width
+     * @param height - image height
+     */
+    public BinaryImage(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.stride = (width + 63) >>> 6;
+        this.words = new long[stride * height];
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * @return int - number of longs in each row
+     */
+    public int getStride() {
+        return stride;
+    }
+
+    public long[] getWords() {
+        return words;
+    }
+
+    /**
+     * This "rowOffset" method returns the index in the word array of the first word of a row
+     * @param y - row
+     * @return int - index of the word holding (0, y)
+     */
+    public int rowOffset(int y) {
+        return y * stride;
+    }
+
+    /**
+     * This "get" method returns whether a pixel is foreground
+     * @param x - x coordinate
+     * @param y - y coordinate
+     * @return boolean - true for foreground (black)
+     */
+    public boolean get(int x, int y) {
+        return (words[y * stride + (x >>> 6)] & (1L << x)) != 0;
+    }
+
+    /**
+     * This "set" method sets a pixel to foreground or background
+     * @param x - x coordinate
+     * @param y - y coordinate
+     * @param foreground - true for foreground (black)
+     */
+    public void set(int x, int y, boolean foreground) {
+        if (foreground)
+            words[y * stride + (x >>> 6)] |= 1L << x;
+        else
+            words[y * stride + (x >>> 6)] &= ~(1L << x);
+    }
+
+    /**
+     * This "lastWordMask" method returns the mask of the bits within the image in the last word of a row
+     * @return long - mask of the valid bits of the last word
+     */
+    public long lastWordMask() {
+        return (width & 63) == 0 ? -1L : (1L << width) - 1;
+    }
+
+    /**
+     * This "countForeground" method returns the number of foreground pixels
+     * @return int - number of set bits
+     */
+    public int countForeground() {
+        int count = 0;
+        for (int i = 0; i < words.length; i++)
+            count += Long.bitCount(words[i]);
+        return count;
+    }//countForeground
+
+    /**
+     * This "fromBufferedImage" method converts a monochrome image, where any pixel that is not white
+     * is foreground (the same rule as BaseMethods.imageToArray).
+     * @param image - monochrome image
+     * @return BinaryImage - packed image
+     */
+    public static BinaryImage fromBufferedImage(BufferedImage image) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        BinaryImage result = new BinaryImage(width, height);
+        int[] row = new int[width];
+        for (int y = 0; y < height; y++) {
+            image.getRGB(0, y, width, 1, row, 0, width);
+            int offset = y * result.stride;
+            for (int x = 0; x < width; x++) {
+                if ((row[x] & 0xFF) != 255)
+                    result.words[offset + (x >>> 6)] |= 1L << x;
+            }//for 2
+        }//for 1
+        return result;
+    }//fromBufferedImage
+
+    /**
+     * This "toBufferedImage" method copies the pixels into a TYPE_BYTE_BINARY image, for display or saving.
+     * @return BufferedImage - monochrome image, foreground in black
+     */
+    public BufferedImage toBufferedImage() {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_BINARY);
+        byte[] mono = ((DataBufferByte) image.getRaster().getDataBuffer()).getData();
+        int monoStride = (width + 7) / 8;
+        for (int y = 0; y < height; y++) {
+            int in = y * stride;
+            int out = y * monoStride;
+            for (int x = 0; x < width; x++) {
+                //bit set in the raster = white
+                if ((words[in + (x >>> 6)] & (1L << x)) == 0)
+                    mono[out + (x >> 3)] |= 0x80 >>> (x & 7);
+            }//for 2
+        }//for 1
+        return image;
+    }//toBufferedImage
+}//BinaryImage
@@ -0,0 +1,201 @@
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * The "CharacterClassifier" class recognises characters by their nearest training samples in feature space.
+ * The samples are one contiguous row-major float matrix, so finding the neighbours of a character is a scan
+ * of squared euclidean distances over consecutive floats, with no hashing or boxing. The distance loop keeps
+ * four partial sums, so consecutive features do not wait on each other and the JIT can keep them in
+ * registers. All the characters of a plate are classified in one call, and for each the k nearest samples
+ * are kept with their distances, as a measure of confidence (a character far from every sample, or about as
+ * close to two labels, is doubtful).
+ *
+ * The samples can be the training characters themselves (k nearest neighbours), or the mean of the
+ * training characters of each label (nearest centroid, see centroids()). A classifier keeps scratch buffers,
+ * so it must not be shared by threads.
+ *
+ * @author Daniel Speiser
+ * OCR Project: License Plate Reader
+ *
+ */
+public class CharacterClassifier implements CharacterRecognizer {
+    private final float [] samples;
+    private final String [] labels;
+    private final int numSamples;
+    private final int numFeatures;
+    //the store the samples came from, to normalise queries, or null
+    private final FeatureStore store;
+    private float [] queries = new float[0];
+    //measures plates for recognize, with the zone grid of the store
+    private MeasurementStage measurementStage;
+    private double [] features;
+
+    /**
+     * @param samples - sample features, numSamples x numFeatures, row-major
+     * @param labels - label of each sample
+     * @param numFeatures - number of features of a sample
+     */
+    public CharacterClassifier(float [] samples, String [] labels, int numFeatures) {
+        this(samples, labels, numFeatures, null);
+    }
+
+    /**
+     * Classifies with the training characters of a feature store, copied out of the mapped file.
+     * @param store - feature store
+     */
+    public CharacterClassifier(FeatureStore store) {
+        this(samplesOf(store), labelsOf(store), store.getNumFeatures(), store);
+    }
+
+    private CharacterClassifier(float [] samples, String [] labels, int numFeatures, FeatureStore store) {
+        if (samples.length != labels.length * numFeatures)
+            throw new IllegalArgumentException("Inconsistent Sample Inputs!!!");
+        this.samples = samples;
+        this.labels = labels;
+        this.numSamples = labels.length;
+        this.numFeatures = numFeatures;
+        this.store = store;
+    }
+
+    private static float [] samplesOf(FeatureStore store) {
+        float [] samples = new float[store.getNumSamples() * store.getNumFeatures()];
+        store.getFeatures().get(samples);
+        return samples;
+    }
+
+    private static String [] labelsOf(FeatureStore store) {
+        String [] labels = new String[store.getNumSamples()];
+        for (int i = 0; i < labels.length; i++)
+            labels[i] = store.getLabel(i);
+        return labels;
+    }
+
+    /**
+     * This "centroids" method returns a nearest centroid classifier: one sample per label, the mean of the
+     * samples of that label, in order of first appearance
+     * @return CharacterClassifier - classifier over the centroids
+     */
+    public CharacterClassifier centroids() {
+        String [] names = new String[numSamples];
+        int [] classOf = new int[numSamples];
+        int numClasses = 0;
+        for (int i = 0; i < numSamples; i++) {
+            int c = 0;
+            while (c < numClasses && !names[c].equals(labels[i]))
+                c++;
+            if (c == numClasses)
+                names[numClasses++] = labels[i];
+            classOf[i] = c;
+        }
+
+        float [] sums = new float[numClasses * numFeatures];
+        int [] counts = new int[numClasses];
+        for (int i = 0; i < numSamples; i++) {
+            counts[classOf[i]]++;
+            for (int f = 0; f < numFeatures; f++)
+                sums[classOf[i] * numFeatures + f] += samples[i * numFeatures + f];
+        }
+        for (int c = 0; c < numClasses; c++) {
+            for (int f = 0; f < numFeatures; f++)
+                sums[c * numFeatures + f] /= counts[c];
+        }
+        return new CharacterClassifier(sums, Arrays.copyOf(names, numClasses), numFeatures, store);
+    }//centroids
+
+    public int getNumSamples() {
+        return numSamples;
+    }
+
+    public int getNumFeatures() {
+        return numFeatures;
+    }
+
+    /**
+     * This "recognize" method measures the characters of a plate on a MeasurementStage and classifies them
+     */
+    @Override
+    public CharacterRecognizer.Result recognize(ComponentStatistics components, int [] characters, int k) {
+        if (store == null)
+            throw new IllegalStateException("Raw features need the feature store to be normalised");
+        if (measurementStage == null)
+            measurementStage = new MeasurementStage(ForkJoinPool.commonPool(), store.getZoneRows(), store.getZoneColumns(),
+                    MeasurementStage.DEFAULT_CHUNK_AREA);
+        features = measurementStage.measure(components, characters, features);
+        return classify(features, characters.length, k);
+    }//recognize
+
+    /**
+     * This "classify" method classifies rows of raw features, such as those of a MeasurementStage, after
+     * normalising them like the training features of the store
+     * @param features - feature matrix, numQueries x numFeatures, row-major
+     * @param numQueries - number of characters
+     * @param k - number of neighbours to keep, 1 or more
+     * @return CharacterRecognizer.Result - the k nearest samples of each character
+     */
+    public CharacterRecognizer.Result classify(double [] features, int numQueries, int k) {
+        if (store == null)
+            throw new IllegalStateException("Raw features need the feature store to be normalised");
+        if (queries.length < numQueries * numFeatures)
+            queries = new float[numQueries * numFeatures];
+        for (int q = 0; q < numQueries; q++)
+            store.normalise(features, q * numFeatures, queries, q * numFeatures);
+        return classify(queries, numQueries, k);
+    }//classify
+
+    /**
+     * This "classify" method finds the k nearest samples of each of a batch of normalised feature rows
+     * @param queries - normalised features, numQueries x numFeatures, row-major
+     * @param numQueries - number of characters
+     * @param k - number of neighbours to keep, 1 or more (at most the number of samples are kept)
+     * @return CharacterRecognizer.Result - the k nearest samples of each character
+     */
+    public CharacterRecognizer.Result classify(float [] queries, int numQueries, int k) {
+        if (k < 1)
+            throw new IllegalArgumentException("At least one neighbour must be kept: " + k);
+        k = Math.min(k, numSamples);
+        int [] nearest = new int[numQueries * k];
+        float [] distances = new float[numQueries * k];
+        for (int q = 0; q < numQueries; q++) {
+            int first = q * k;
+            int found = 0;
+            for (int s = 0; s < numSamples; s++) {
+                float distance = distance(queries, q * numFeatures, s * numFeatures);
+                if (found == k && distance >= distances[first + k - 1])
+                    continue;
+                //insert into the sorted neighbours, dropping the farthest if they are full
+                int i = found < k ? found++ : k - 1;
+                while (i > 0 && distances[first + i - 1] > distance) {
+                    distances[first + i] = distances[first + i - 1];
+                    nearest[first + i] = nearest[first + i - 1];
+                    i--;
+                }
+                distances[first + i] = distance;
+                nearest[first + i] = s;
+            }//for 2
+        }//for 1
+        return new CharacterRecognizer.Result(labels, nearest, distances, numQueries, k);
+    }//classify
+
+    /**
+     * This "distance" method returns the squared euclidean distance between a query and a sample
+     */
+    private float distance(float [] queries, int query, int sample) {
+        float sum0 = 0, sum1 = 0, sum2 = 0, sum3 = 0;
+        int f = 0;
+        for (; f + 3 < numFeatures; f += 4) {
+            float d0 = queries[query + f] - samples[sample + f];
+            float d1 = queries[query + f + 1] - samples[sample + f + 1];
+            float d2 = queries[query + f + 2] - samples[sample + f + 2];
+            float d3 = queries[query + f + 3] - samples[sample + f + 3];
+            sum0 += d0 * d0;
+            sum1 += d1 * d1;
+            sum2 += d2 * d2;
+            sum3 += d3 * d3;
+        }
+        for (; f < numFeatures; f++) {
+            float d = queries[query + f] - samples[sample + f];
+            sum0 += d * d;
+        }
+        return (sum0 + sum1) + (sum2 + sum3);
+    }//distance
+}//CharacterClassifier
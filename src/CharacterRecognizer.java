@@ -0,0 +1,78 @@
+/**
+ * The "CharacterRecognizer" interface is a recognition engine, which reads the characters of a plate from
+ * its measured components. The feature based engine is "CharacterClassifier", and the bitmap based one is
+ * "TemplateMatcher", so either can be picked at startup.
+ *
+ * @author Daniel Speiser
+ * OCR Project: License Plate Reader
+ *
+ */
+public interface CharacterRecognizer {
+    /**
+     * This "recognize" method finds the k best matching training characters of each of a plate's characters.
+     * Distances are only comparable within one engine.
+     * @param components - statistics of the components, measured on a label image
+     * @param characters - labels of the character components, in reading order
+     * @param k - number of matches to keep, 1 or more
+     * @return Result - the k best matches of each character, best first
+     */
+    Result recognize(ComponentStatistics components, int [] characters, int k);
+
+    /**
+     * The k best matching training characters of each character of a batch, best first.
+     */
+    class Result {
+        private final String [] labels;
+        private final int [] nearest;
+        private final float [] distances;
+        private final int numQueries;
+        private final int k;
+
+        Result(String [] labels, int [] nearest, float [] distances, int numQueries, int k) {
+            this.labels = labels;
+            this.nearest = nearest;
+            this.distances = distances;
+            this.numQueries = numQueries;
+            this.k = k;
+        }
+
+        public int getNumQueries() {
+            return numQueries;
+        }
+
+        public int getK() {
+            return k;
+        }
+
+        /**
+         * @return String - label of the rank-th best match of a character (rank 0 is the best)
+         */
+        public String getLabel(int query, int rank) {
+            return labels[nearest[query * k + rank]];
+        }
+
+        /**
+         * @return int - index of the training sample or template of the rank-th best match of a character
+         */
+        public int getSample(int query, int rank) {
+            return nearest[query * k + rank];
+        }
+
+        /**
+         * @return float - distance to the rank-th best match of a character, in the units of the engine
+         */
+        public float getDistance(int query, int rank) {
+            return distances[query * k + rank];
+        }
+
+        /**
+         * @return String - the best label of every character, in order
+         */
+        public String getText() {
+            StringBuilder text = new StringBuilder();
+            for (int q = 0; q < numQueries; q++)
+                text.append(k > 0 ? getLabel(q, 0) : "?");
+            return text.toString();
+        }
+    }//Result
+}//CharacterRecognizer
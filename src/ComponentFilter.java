@@ -0,0 +1,171 @@
+import java.util.Arrays;
+
+/**
+ * The "ComponentFilter" class picks the components that may be characters out of the components of a plate,
+ * so that pixels and features are only extracted for those. The rules are applied in order, each to the
+ * components left by the ones before it:
+ *
+ * BACKGROUND   - background components are never characters
+ * BORDER       - components touching the image border (plate frame, cropped screws)
+ * AREA         - components below a minimum or above a maximum fraction of the image area (specks, frame)
+ * ASPECT_RATIO - components whose bounding box width / height is outside a range (lines, wide blobs)
+ * HEIGHT       - components lower than a fraction of the image height, then those whose height is too far
+ *                from the median height of the components left
+ *
+ * The number of components pruned by each rule is kept in the result, for tuning.
+ *
+ * @author Daniel Speiser
+ * OCR Project: License Plate Reader
+ *
+ */
+public class ComponentFilter {
+    public enum Rule { BACKGROUND, BORDER, AREA, ASPECT_RATIO, HEIGHT }
+
+    private double minAreaFraction = 0.001;
+    private double maxAreaFraction = 0.05;
+    private double minAspectRatio = 0.1;
+    private double maxAspectRatio = 1.0;
+    private double minHeightFraction = 0.2;
+    private double minRelativeHeight = 0.75;
+    private double maxRelativeHeight = 1.33;
+    private boolean rejectBorder = true;
+
+    /**
+     * This "setArea" method sets the range of component areas kept, as fractions of the image area
+     */
+    public ComponentFilter setArea(double minAreaFraction, double maxAreaFraction) {
+        this.minAreaFraction = minAreaFraction;
+        this.maxAreaFraction = maxAreaFraction;
+        return this;
+    }
+
+    /**
+     * This "setAspectRatio" method sets the range of bounding box width / height kept
+     */
+    public ComponentFilter setAspectRatio(double minAspectRatio, double maxAspectRatio) {
+        this.minAspectRatio = minAspectRatio;
+        this.maxAspectRatio = maxAspectRatio;
+        return this;
+    }
+
+    /**
+     * This "setMinHeight" method sets the lowest height kept, as a fraction of the image height
+     */
+    public ComponentFilter setMinHeight(double minHeightFraction) {
+        this.minHeightFraction = minHeightFraction;
+        return this;
+    }
+
+    /**
+     * This "setRelativeHeight" method sets the range of heights kept, as fractions of the median height
+     */
+    public ComponentFilter setRelativeHeight(double minRelativeHeight, double maxRelativeHeight) {
+        this.minRelativeHeight = minRelativeHeight;
+        this.maxRelativeHeight = maxRelativeHeight;
+        return this;
+    }
+
+    /**
+     * This "setRejectBorder" method sets whether components touching the image border are pruned
+     */
+    public ComponentFilter setRejectBorder(boolean rejectBorder) {
+        this.rejectBorder = rejectBorder;
+        return this;
+    }
+
+    /**
+     * This "filter" method applies the rules to every component of an image
+     * @param statistics - statistics of the components
+     * @param width - image width
+     * @param height - image height
+     * @return Result - labels of the components kept, and the number pruned by each rule
+     */
+    public Result filter(ComponentStatistics statistics, int width, int height) {
+        int [] pruned = new int[Rule.values().length];
+        int [] kept = new int[statistics.getNumComponents()];
+        int numKept = 0;
+        double imageArea = (double) width * height;
+
+        for (int c = 0; c < statistics.getNumComponents(); c++) {
+            Rule rule = null;
+            double aspectRatio = (double) statistics.getWidth(c) / statistics.getHeight(c);
+            if (!statistics.isForeground(c))
+                rule = Rule.BACKGROUND;
+            else if (rejectBorder && (statistics.getMinX(c) == 0 || statistics.getMinY(c) == 0
+                    || statistics.getMaxX(c) == width - 1 || statistics.getMaxY(c) == height - 1))
+                rule = Rule.BORDER;
+            else if (statistics.getArea(c) < minAreaFraction * imageArea || statistics.getArea(c) > maxAreaFraction * imageArea)
+                rule = Rule.AREA;
+            else if (aspectRatio < minAspectRatio || aspectRatio > maxAspectRatio)
+                rule = Rule.ASPECT_RATIO;
+            else if (statistics.getHeight(c) < minHeightFraction * height)
+                rule = Rule.HEIGHT;
+
+            if (rule == null)
+                kept[numKept++] = c;
+            else
+                pruned[rule.ordinal()]++;
+        }//for
+
+        //heights relative to the median height of the components left
+        if (numKept > 0) {
+            int [] heights = new int[numKept];
+            for (int i = 0; i < numKept; i++)
+                heights[i] = statistics.getHeight(kept[i]);
+            Arrays.sort(heights);
+            double median = numKept % 2 == 1 ? heights[numKept / 2] : (heights[numKept / 2 - 1] + heights[numKept / 2]) / 2.0;
+            int numLeft = 0;
+            for (int i = 0; i < numKept; i++) {
+                double relativeHeight = statistics.getHeight(kept[i]) / median;
+                if (relativeHeight < minRelativeHeight || relativeHeight > maxRelativeHeight)
+                    pruned[Rule.HEIGHT.ordinal()]++;
+                else
+                    kept[numLeft++] = kept[i];
+            }
+            numKept = numLeft;
+        }
+        return new Result(Arrays.copyOf(kept, numKept), pruned, statistics.getNumComponents());
+    }//filter
+
+    /**
+     * The components kept by a filter, and the number of components pruned by each rule.
+     */
+    public static class Result {
+        private final int [] kept;
+        private final int [] pruned;
+        private final int numComponents;
+
+        Result(int [] kept, int [] pruned, int numComponents) {
+            this.kept = kept;
+            this.pruned = pruned;
+            this.numComponents = numComponents;
+        }
+
+        /**
+         * @return int[] - labels of the components kept, in label order
+         */
+        public int [] getKept() {
+            return kept;
+        }
+
+        public int getNumPruned(Rule rule) {
+            return pruned[rule.ordinal()];
+        }
+
+        public int getNumComponents() {
+            return numComponents;
+        }
+
+        /**
+         * @return String - one line report of the components pruned by each rule
+         */
+        public String getReport() {
+            StringBuilder report = new StringBuilder();
+            report.append("Components: ").append(numComponents);
+            for (Rule rule : Rule.values())
+                report.append(", ").append(rule).append(": -").append(pruned[rule.ordinal()]);
+            report.append(", kept: ").append(kept.length);
+            return report.toString();
+        }
+    }//Result
+}//ComponentFilter
@@ -0,0 +1,162 @@
+import java.util.Arrays;
+
+/**
+ * The "ComponentPixelIndex" class lists the pixels of every component of a label image in two int arrays
+ * (compressed sparse rows): the pixels of component c are getPixel(i) for i from getStart(c) to
+ * getStart(c + 1) - 1, each pixel stored as its index y * width + x, in raster order. All the components of
+ * a plate share the two arrays, instead of a list of boxed points each.
+ *
+ * @author Daniel Speiser
+ * OCR Project: License Plate Reader
+ *
+ */
+public class ComponentPixelIndex {
+    private final int width;
+    private final int numComponents;
+    private final int [] start;
+    private final int [] pixels;
+
+    private ComponentPixelIndex(int width, int numComponents, int [] start, int [] pixels) {
+        this.width = width;
+        this.numComponents = numComponents;
+        this.start = start;
+        this.pixels = pixels;
+    }
+
+    /**
+     * This "build" method indexes the pixels of every component, with a counting sort over the labels:
+     * one pass counts the pixels of each component, the next places each pixel after the ones before it.
+     * @param labels - label image
+     * @return ComponentPixelIndex - pixels of every component
+     */
+    public static ComponentPixelIndex build(LabelImage labels) {
+        int [] cc = labels.getLabels();
+        int numPixels = labels.getWidth() * labels.getHeight();
+        int numComponents = labels.getNumLabels();
+        int [] start = new int[numComponents + 1];
+        for (int i = 0; i < numPixels; i++)
+            start[cc[i] + 1]++;
+        for (int c = 0; c < numComponents; c++)
+            start[c + 1] += start[c];
+
+        int [] pixels = new int[numPixels];
+        int [] next = start.clone();
+        for (int i = 0; i < numPixels; i++)
+            pixels[next[cc[i]]++] = i;
+        return new ComponentPixelIndex(labels.getWidth(), numComponents, start, pixels);
+    }//build
+
+    /**
+     * This "buildForeground" method indexes the pixels of the foreground components only, numbered 0, 1, 2, ...
+     * in order of first appearance (the order of ConnectedComponents.getForegroundComponentPoints).
+     * @param labels - label image
+     * @param image - binary image the labels were found in
+     * @return ComponentPixelIndex - pixels of every foreground component
+     */
+    public static ComponentPixelIndex buildForeground(LabelImage labels, BinaryImage image) {
+        int [] cc = labels.getLabels();
+        int width = labels.getWidth();
+        int size = width * labels.getHeight();
+        long [] words = image.getWords();
+        //foreground number of each label, -1 for background labels
+        int [] componentOf = new int[labels.getNumLabels()];
+        Arrays.fill(componentOf, -1);
+        int numComponents = 0, numPixels = 0;
+        for (int y = 0; y < labels.getHeight(); y++) {
+            int offset = image.rowOffset(y);
+            for (int x = 0; x < width; x++) {
+                if ((words[offset + (x >>> 6)] & (1L << x)) != 0) {
+                    if (componentOf[cc[y * width + x]] < 0)
+                        componentOf[cc[y * width + x]] = numComponents++;
+                    numPixels++;
+                }
+            }
+        }
+
+        int [] start = new int[numComponents + 1];
+        for (int i = 0; i < size; i++) {
+            if (componentOf[cc[i]] >= 0)
+                start[componentOf[cc[i]] + 1]++;
+        }
+        for (int c = 0; c < numComponents; c++)
+            start[c + 1] += start[c];
+
+        int [] pixels = new int[numPixels];
+        int [] next = start.clone();
+        for (int i = 0; i < size; i++) {
+            if (componentOf[cc[i]] >= 0)
+                pixels[next[componentOf[cc[i]]]++] = i;
+        }
+        return new ComponentPixelIndex(width, numComponents, start, pixels);
+    }//buildForeground
+
+    /**
+     * This "build" method indexes the pixels of some of the components only, such as those kept by a
+     * ComponentFilter, component i of the index being label components[i].
+     * @param labels - label image
+     * @param components - labels of the components to index
+     * @return ComponentPixelIndex - pixels of those components
+     */
+    public static ComponentPixelIndex build(LabelImage labels, int [] components) {
+        int [] cc = labels.getLabels();
+        int size = labels.getWidth() * labels.getHeight();
+        //index of each label, -1 for labels left out
+        int [] componentOf = new int[labels.getNumLabels()];
+        Arrays.fill(componentOf, -1);
+        for (int i = 0; i < components.length; i++)
+            componentOf[components[i]] = i;
+
+        int [] start = new int[components.length + 1];
+        for (int i = 0; i < size; i++) {
+            if (componentOf[cc[i]] >= 0)
+                start[componentOf[cc[i]] + 1]++;
+        }
+        for (int c = 0; c < components.length; c++)
+            start[c + 1] += start[c];
+
+        int [] pixels = new int[start[components.length]];
+        int [] next = start.clone();
+        for (int i = 0; i < size; i++) {
+            if (componentOf[cc[i]] >= 0)
+                pixels[next[componentOf[cc[i]]]++] = i;
+        }
+        return new ComponentPixelIndex(labels.getWidth(), components.length, start, pixels);
+    }//build
+
+    public int getNumComponents() {
+        return numComponents;
+    }
+
+    /**
+     * @return int - index of the first pixel of a component (0 to numComponents)
+     */
+    public int getStart(int component) {
+        return start[component];
+    }
+
+    /**
+     * @return int - number of pixels of a component
+     */
+    public int getSize(int component) {
+        return start[component + 1] - start[component];
+    }
+
+    /**
+     * @return int - pixel at an index, as y * width + x
+     */
+    public int getPixel(int index) {
+        return pixels[index];
+    }
+
+    public int getX(int index) {
+        return pixels[index] % width;
+    }
+
+    public int getY(int index) {
+        return pixels[index] / width;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+}//ComponentPixelIndex
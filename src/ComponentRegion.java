@@ -0,0 +1,87 @@
+import java.awt.Rectangle;
+
+/**
+ * The "ComponentRegion" class is one finished foreground component from the StreamingComponentLabeller: its
+ * area, bounding box, and its runs in raster order, run i being row getRunRow(i), pixels getRunStart(i) to
+ * getRunEnd(i) - 1.
+ *
+ * @author Daniel Speiser
+ * OCR Project: License Plate Reader
+ *
+ */
+public class ComponentRegion {
+    private final int id;
+    private final int area;
+    private final int minX, minY, maxX, maxY;
+    private final int [] runRows;
+    private final int [] runStarts;
+    private final int [] runEnds;
+
+    public ComponentRegion(int id, int area, int minX, int minY, int maxX, int maxY, int [] runRows, int [] runStarts, int [] runEnds) {
+        this.id = id;
+        this.area = area;
+        this.minX = minX;
+        this.minY = minY;
+        this.maxX = maxX;
+        this.maxY = maxY;
+        this.runRows = runRows;
+        this.runStarts = runStarts;
+        this.runEnds = runEnds;
+    }
+
+    /**
+     * @return int - number of the component, in the order the components were finished
+     */
+    public int getId() {
+        return id;
+    }
+
+    public int getArea() {
+        return area;
+    }
+
+    public int getMinX() {
+        return minX;
+    }
+
+    public int getMinY() {
+        return minY;
+    }
+
+    public int getMaxX() {
+        return maxX;
+    }
+
+    public int getMaxY() {
+        return maxY;
+    }
+
+    /**
+     * @return Rectangle - smallest rectangle holding every pixel of the component
+     */
+    public Rectangle getBounds() {
+        return new Rectangle(minX, minY, maxX - minX + 1, maxY - minY + 1);
+    }
+
+    public int getNumRuns() {
+        return runRows.length;
+    }
+
+    public int getRunRow(int run) {
+        return runRows[run];
+    }
+
+    /**
+     * @return int - x of the first pixel of a run
+     */
+    public int getRunStart(int run) {
+        return runStarts[run];
+    }
+
+    /**
+     * @return int - x one past the last pixel of a run
+     */
+    public int getRunEnd(int run) {
+        return runEnds[run];
+    }
+}//ComponentRegion
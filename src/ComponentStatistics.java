@@ -0,0 +1,304 @@
+import java.awt.Rectangle;
+import java.util.Arrays;
+
+/**
+ * The "ComponentStatistics" class holds measurements of every connected component of a label image in
+ * primitive arrays indexed by label: area, bounding box, raw moments up to order 3 (from which the centroid
+ * and the central and Hu moments follow), the crack perimeter (the number of pixel edges between the
+ * component and the rest of the image), the first pixel in raster order, and whether the component is
+ * foreground. They are accumulated while the labels are assigned, so no list of points is needed.
+ *
+ * @author Daniel Speiser
+ * OCR Project: License Plate Reader
+ *
+ */
+public class ComponentStatistics {
+    private int numComponents;
+    private int [] area;
+    private int [] minX, minY, maxX, maxY;
+    //raw moments: sums of x^p * y^q over the pixels, index p * 4 + q
+    private double [][] moments;
+    //pairs of 4-neighbors inside the component, for the perimeter
+    private int [] adjacentPairs;
+    private int [] firstPixel;
+    private boolean [] foreground;
+    private LabelImage labels;
+
+    /**
+     * Creates statistics for up to "capacity" components, all empty.
+     * @param capacity - number of labels
+     */
+    ComponentStatistics(int capacity) {
+        area = new int[capacity];
+        minX = new int[capacity];
+        minY = new int[capacity];
+        maxX = new int[capacity];
+        maxY = new int[capacity];
+        Arrays.fill(minX, Integer.MAX_VALUE);
+        Arrays.fill(minY, Integer.MAX_VALUE);
+        Arrays.fill(maxX, -1);
+        Arrays.fill(maxY, -1);
+        moments = new double[16][];
+        for (int p = 0; p <= 3; p++) {
+            for (int q = 0; p + q <= 3; q++) {
+                if (p + q > 0)
+                    moments[p * 4 + q] = new double[capacity];
+            }
+        }
+        adjacentPairs = new int[capacity];
+        firstPixel = new int[capacity];
+        Arrays.fill(firstPixel, -1);
+        foreground = new boolean[capacity];
+        numComponents = capacity;
+    }
+
+    /**
+     * Measures the components of a label image with one pass over its labels.
+     * @param labels - label image
+     * @param image - binary image the labels were found in
+     */
+    public ComponentStatistics(LabelImage labels, BinaryImage image) {
+        this(labels.getNumLabels());
+        this.labels = labels;
+        int width = labels.getWidth();
+        int [] cc = labels.getLabels();
+        for (int y = 0; y < labels.getHeight(); y++) {
+            int offset = labels.rowOffset(y);
+            for (int x = 0; x < width; x++)
+                add(cc, offset + x, x, y, width, image.get(x, y));
+        }
+    }
+
+    /**
+     * This "add" method adds a pixel to its component. The pixels must be added in raster order, each
+     * after its left and upper neighbors.
+     * @param cc - labels, y * width + x, final up to this pixel
+     * @param i - index of the pixel
+     * @param x - x coordinate
+     * @param y - y coordinate
+     * @param width - image width
+     * @param isForeground - whether the pixel is foreground
+     */
+    void add(int [] cc, int i, int x, int y, int width, boolean isForeground) {
+        int label = cc[i];
+        if (area[label]++ == 0) {
+            firstPixel[label] = i;
+            foreground[label] = isForeground;
+        }
+        if (x < minX[label]) minX[label] = x;
+        if (x > maxX[label]) maxX[label] = x;
+        if (y < minY[label]) minY[label] = y;
+        maxY[label] = y;
+        if (x > 0 && cc[i - 1] == label)
+            adjacentPairs[label]++;
+        if (y > 0 && cc[i - width] == label)
+            adjacentPairs[label]++;
+
+        double x2 = (double) x * x, y2 = (double) y * y;
+        moments[1][label] += y;
+        moments[2][label] += y2;
+        moments[3][label] += y2 * y;
+        moments[4][label] += x;
+        moments[5][label] += (double) x * y;
+        moments[6][label] += x * y2;
+        moments[8][label] += x2;
+        moments[9][label] += x2 * y;
+        moments[12][label] += x2 * x;
+    }//add
+
+    /**
+     * This "trim" method drops the labels from "numComponents" on, once the number of components is known
+     * @param numComponents - number of components
+     */
+    void trim(int numComponents) {
+        this.numComponents = numComponents;
+        area = Arrays.copyOf(area, numComponents);
+        minX = Arrays.copyOf(minX, numComponents);
+        minY = Arrays.copyOf(minY, numComponents);
+        maxX = Arrays.copyOf(maxX, numComponents);
+        maxY = Arrays.copyOf(maxY, numComponents);
+        for (int k = 0; k < 16; k++) {
+            if (moments[k] != null)
+                moments[k] = Arrays.copyOf(moments[k], numComponents);
+        }
+        adjacentPairs = Arrays.copyOf(adjacentPairs, numComponents);
+        firstPixel = Arrays.copyOf(firstPixel, numComponents);
+        foreground = Arrays.copyOf(foreground, numComponents);
+    }//trim
+
+    /**
+     * This "fromRuns" method measures the components of a run length encoded image, a run at a time: the
+     * sums of x^p over a run have closed forms, and the perimeter only needs the overlaps of the runs of
+     * consecutive rows.
+     * @param components - foreground components
+     * @return ComponentStatistics - statistics of the foreground components
+     */
+    public static ComponentStatistics fromRuns(RunComponents components) {
+        RunLengthEncoding runs = components.getRuns();
+        int width = runs.getWidth();
+        ComponentStatistics statistics = new ComponentStatistics(components.getNumComponents());
+        for (int c = 0; c < components.getNumComponents(); c++) {
+            statistics.foreground[c] = true;
+            int previousRowFirst = -1, rowFirst = -1, row = -1;
+            int first = components.getComponentStart(c), last = components.getComponentStart(c + 1);
+            for (int i = first; i < last; i++) {
+                int run = components.getComponentRun(i);
+                int y = runs.getRunRow(run), start = runs.getRunStart(run), end = runs.getRunEnd(run);
+                if (i == first)
+                    statistics.firstPixel[c] = y * width + start;
+                if (y != row) {
+                    previousRowFirst = row == y - 1 ? rowFirst : -1;
+                    rowFirst = i;
+                    row = y;
+                }
+                statistics.addRun(c, y, start, end);
+                //vertical pairs with the runs of the row above
+                if (previousRowFirst >= 0) {
+                    for (int j = previousRowFirst; j < rowFirst; j++) {
+                        int above = components.getComponentRun(j);
+                        int overlap = Math.min(end, runs.getRunEnd(above)) - Math.max(start, runs.getRunStart(above));
+                        if (overlap > 0)
+                            statistics.adjacentPairs[c] += overlap;
+                    }
+                }
+            }//for 2
+        }//for 1
+        return statistics;
+    }//fromRuns
+
+    /**
+     * This "addRun" method adds the pixels "start" to "end" - 1 of row y to a component
+     */
+    private void addRun(int label, int y, int start, int end) {
+        int n = end - start;
+        area[label] += n;
+        if (start < minX[label]) minX[label] = start;
+        if (end - 1 > maxX[label]) maxX[label] = end - 1;
+        if (y < minY[label]) minY[label] = y;
+        if (y > maxY[label]) maxY[label] = y;
+        adjacentPairs[label] += n - 1;
+
+        //sums of x, x^2 and x^3 for x from start to end - 1
+        double s1 = powerSum1(end) - powerSum1(start);
+        double s2 = powerSum2(end) - powerSum2(start);
+        double s3 = powerSum3(end) - powerSum3(start);
+        double y2 = (double) y * y;
+        moments[1][label] += n * (double) y;
+        moments[2][label] += n * y2;
+        moments[3][label] += n * y2 * y;
+        moments[4][label] += s1;
+        moments[5][label] += s1 * y;
+        moments[6][label] += s1 * y2;
+        moments[8][label] += s2;
+        moments[9][label] += s2 * y;
+        moments[12][label] += s3;
+    }//addRun
+
+    //sums of x^k for x from 0 to n - 1
+    private static double powerSum1(double n) {
+        return n * (n - 1) / 2;
+    }
+
+    private static double powerSum2(double n) {
+        return (n - 1) * n * (2 * n - 1) / 6;
+    }
+
+    private static double powerSum3(double n) {
+        double s = powerSum1(n);
+        return s * s;
+    }
+
+    /**
+     * @return LabelImage - labels the statistics were measured on, null if they were measured from runs
+     */
+    public LabelImage getLabelImage() {
+        return labels;
+    }
+
+    void setLabelImage(LabelImage labels) {
+        this.labels = labels;
+    }
+
+    public int getNumComponents() {
+        return numComponents;
+    }
+
+    public int getArea(int label) {
+        return area[label];
+    }
+
+    public int getMinX(int label) {
+        return minX[label];
+    }
+
+    public int getMinY(int label) {
+        return minY[label];
+    }
+
+    public int getMaxX(int label) {
+        return maxX[label];
+    }
+
+    public int getMaxY(int label) {
+        return maxY[label];
+    }
+
+    public int getWidth(int label) {
+        return maxX[label] - minX[label] + 1;
+    }
+
+    public int getHeight(int label) {
+        return maxY[label] - minY[label] + 1;
+    }
+
+    /**
+     * @return Rectangle - bounding box of a component
+     */
+    public Rectangle getBounds(int label) {
+        return new Rectangle(minX[label], minY[label], getWidth(label), getHeight(label));
+    }
+
+    /**
+     * This "getMoment" method returns a raw moment of a component, the sum of x^p * y^q over its pixels
+     * @param label - component
+     * @param p - order in x (0-3)
+     * @param q - order in y (0-3), p + q at most 3
+     * @return double - raw moment
+     */
+    public double getMoment(int label, int p, int q) {
+        if (p < 0 || q < 0 || p + q > 3)
+            throw new IllegalArgumentException("Moments are kept up to order 3: " + p + ", " + q);
+        if (p == 0 && q == 0)
+            return area[label];
+        return moments[p * 4 + q][label];
+    }
+
+    public double getCentroidX(int label) {
+        return moments[4][label] / area[label];
+    }
+
+    public double getCentroidY(int label) {
+        return moments[1][label] / area[label];
+    }
+
+    /**
+     * This "getPerimeter" method returns the crack perimeter of a component, the number of pixel edges
+     * between it and other components or the image border (including the edges around its holes)
+     * @param label - component
+     * @return int - perimeter
+     */
+    public int getPerimeter(int label) {
+        return 4 * area[label] - 2 * adjacentPairs[label];
+    }
+
+    /**
+     * @return int - index (y * width + x) of the first pixel of a component in raster order
+     */
+    public int getFirstPixel(int label) {
+        return firstPixel[label];
+    }
+
+    public boolean isForeground(int label) {
+        return foreground[label];
+    }
+}//ComponentStatistics
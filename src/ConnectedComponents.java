@@ -1,6 +1,11 @@
 import java.awt.*;
 import java.awt.image.BufferedImage;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
 
 /**
  * The "ConnectedComponents" class performs different connected components algorithms on
@@ -49,114 +54,431 @@ public class ConnectedComponents extends BaseMethods {
      * 01111111110
      * 11000000011
      *
+     * This is a TWO-PASS algorithm. The first pass gives each pixel the label of a matching neighbor above or to
+     * its left (or a new label), and records in a union find forest that the labels of all its matching neighbors
+     * are the same component, so a 'U' whose arms meet at the bottom ends up as one component. The second pass
+     * replaces each label by its component number, numbered 0, 1, 2, ... in order of first appearance.
+     *
      * @param image Image used to get connected components for.
-     * @return int [] of connected components
+     * @return int [] of connected components, y * width + x
      */
     public int [] getConnectedComponents(BufferedImage image) {
         //get image height and width for traversal
         int width = image.getWidth();
         int height = image.getHeight();
 
-        //This is a TWO-PATH algorithm. First pass assigns default component values. The second calculates the equality of neighboring pixels.
-        int [] cc = getDefaultComponentValues(width, height);
+        int [] cc = new int[width * height];
+        UnionFind labels = new UnionFind(width * height / 16);
+        int [] previous = new int[width];
+        int [] current = new int[width];
+        int [] temp;
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++)
+                current[x] = getPixelValue(image, x, y);
+            labelRow(previous, current, cc, y, width, y > 0, labels);
+            temp = previous;
+            previous = current;
+            current = temp;
+        }
+        resolveComponents(cc, 0, cc.length, labels);
+        return cc;
+    }
+    /**
+     * This "getConnectedComponents" method runs the same 8 connectivity connected components algorithm on a packed
+     * binary image, comparing foreground bits instead of pixel colors. Foreground and background components are
+     * both labelled.
+     *
+     * @param image Binary image used to get connected components for.
+     * @return LabelImage of connected components, labelled 0, 1, 2, ... in order of first appearance
+     */
+    public LabelImage getConnectedComponents(BinaryImage image) {
+        int [] cc = new int[image.getWidth() * image.getHeight()];
+        UnionFind labels = labelStrip(image, cc, 0, image.getHeight());
+        return new LabelImage(image.getWidth(), image.getHeight(), cc, resolveComponents(cc, 0, cc.length, labels));
+    }
+    /**
+     * This "measureComponents" method labels a binary image like getConnectedComponents, and measures every
+     * component (area, bounding box, moments, perimeter) in the same pass that assigns the final labels.
+     *
+     * @param image Binary image used to get connected components for.
+     * @return ComponentStatistics of every foreground and background component, with the label image
+     */
+    public ComponentStatistics measureComponents(BinaryImage image) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        long [] words = image.getWords();
+        int [] cc = new int[width * height];
+        UnionFind labels = labelStrip(image, cc, 0, height);
 
-        boolean up, upRight, upLeft, left;
+        ComponentStatistics statistics = new ComponentStatistics(labels.size());
+        int [] componentOf = new int[labels.size()];
+        Arrays.fill(componentOf, -1);
+        int numComponents = 0;
+        int root, i;
         for (int y = 0; y < height; y++) {
+            int offset = image.rowOffset(y);
             for (int x = 0; x < width; x++) {
-                up = y > 0;
-                upRight = (x < width - 1) && (y > 0);
-                upLeft = (y > 0) && (x > 0);
-                left = (x > 0);
-
-                if (up) {
-                    if (getPixelValue(image, x, y) == getPixelValue(image, x, y - 1)) {
-                        cc[y * width + x] = cc[(y - 1) * width + x];
-                    }
-                }
-                if (upRight) {
-                    if (getPixelValue(image, x, y) == getPixelValue(image, x + 1, y - 1)) {
-                        cc[y * width + x] = cc[(y - 1) * width + x + 1];
-                    }
-                }
-                if (upLeft) {
-                    if (getPixelValue(image, x, y) == getPixelValue(image, x - 1, y - 1)) {
-                        cc[y * width + x] = cc[(y - 1) * width + x - 1];
-                    }
+                i = y * width + x;
+                root = labels.find(cc[i]);
+                if (componentOf[root] < 0)
+                    componentOf[root] = numComponents++;
+                cc[i] = componentOf[root];
+                statistics.add(cc, i, x, y, width, (words[offset + (x >>> 6)] & (1L << x)) != 0);
+            }//for 2
+        }//for 1
+        statistics.trim(numComponents);
+        statistics.setLabelImage(new LabelImage(width, height, cc, numComponents));
+        return statistics;
+    }
+    /**
+     * This "getConnectedComponents" method labels a binary image in parallel, with one horizontal strip per
+     * thread of the pool.
+     *
+     * @param image Binary image used to get connected components for.
+     * @param pool pool to label the strips on
+     * @return LabelImage of connected components, the same as the serial getConnectedComponents
+     */
+    public LabelImage getConnectedComponents(BinaryImage image, ForkJoinPool pool) {
+        return getConnectedComponents(image, pool, pool.getParallelism());
+    }
+    /**
+     * This "getConnectedComponents" method labels a binary image in parallel. The image is cut into horizontal
+     * strips, and each strip is labelled on its own on the pool, as if it were a whole image, with labels of its
+     * own. The strips are then stitched together: along the first row of each strip, the labels of matching
+     * neighbors in the last row of the strip above are merged in a union find forest over all the strip labels.
+     * The strip labels are finally numbered by component in order of first appearance, which only needs a pass
+     * over the labels (not the pixels) since each strip's labels are already in that order, and the pixels of
+     * each strip are renamed in parallel. The labels are exactly those of the serial getConnectedComponents.
+     *
+     * @param image Binary image used to get connected components for.
+     * @param pool pool to label the strips on
+     * @param numStrips number of strips to cut the image into
+     * @return LabelImage of connected components, labelled 0, 1, 2, ... in order of first appearance
+     */
+    public LabelImage getConnectedComponents(final BinaryImage image, ForkJoinPool pool, int numStrips) {
+        final int width = image.getWidth();
+        int height = image.getHeight();
+        final int strips = Math.min(numStrips, height);
+        if (strips <= 1)
+            return getConnectedComponents(image);
+
+        final int [] cc = new int[width * height];
+        final int [] stripStart = new int[strips + 1];
+        for (int s = 0; s <= strips; s++)
+            stripStart[s] = (int) ((long) height * s / strips);
+
+        //label each strip, with labels 0, 1, 2, ... of its own
+        final int [] numStripLabels = new int[strips];
+        forEachStrip(pool, strips, s -> {
+            UnionFind stripLabels = labelStrip(image, cc, stripStart[s], stripStart[s + 1]);
+            numStripLabels[s] = resolveComponents(cc, stripStart[s] * width, stripStart[s + 1] * width, stripLabels);
+        });
+
+        //strip label l of strip s is label labelOffset[s] + l over the whole image
+        final int [] labelOffset = new int[strips + 1];
+        for (int s = 0; s < strips; s++)
+            labelOffset[s + 1] = labelOffset[s] + numStripLabels[s];
+        UnionFind labels = new UnionFind(labelOffset[strips]);
+        for (int i = 0; i < labelOffset[strips]; i++)
+            labels.makeSet();
+
+        //merge the labels along the border of each strip with the strip above
+        long [] words = image.getWords();
+        boolean pixel;
+        for (int s = 1; s < strips; s++) {
+            int y = stripStart[s];
+            int row = image.rowOffset(y), rowAbove = image.rowOffset(y - 1);
+            for (int x = 0; x < width; x++) {
+                pixel = (words[row + (x >>> 6)] & (1L << x)) != 0;
+                for (int neighbor = Math.max(x - 1, 0); neighbor <= Math.min(x + 1, width - 1); neighbor++) {
+                    if (pixel == ((words[rowAbove + (neighbor >>> 6)] & (1L << neighbor)) != 0))
+                        labels.union(labelOffset[s] + cc[y * width + x], labelOffset[s - 1] + cc[(y - 1) * width + neighbor]);
                 }
-                if (left) {
-                    if (getPixelValue(image, x, y) == getPixelValue(image, x - 1, y)) {
-                        cc [y * width + x] = cc[y * width + x - 1];
-                    }
+            }//for 2
+        }//for 1
+
+        //number the components in order of first appearance, going through the strip labels in order
+        final int [] componentOf = new int[labelOffset[strips]];
+        int [] rootComponent = new int[labelOffset[strips]];
+        Arrays.fill(rootComponent, -1);
+        int numComponents = 0;
+        int root;
+        for (int i = 0; i < componentOf.length; i++) {
+            root = labels.find(i);
+            if (rootComponent[root] < 0)
+                rootComponent[root] = numComponents++;
+            componentOf[i] = rootComponent[root];
+        }
+
+        forEachStrip(pool, strips, s -> {
+            for (int i = stripStart[s] * width; i < stripStart[s + 1] * width; i++)
+                cc[i] = componentOf[labelOffset[s] + cc[i]];
+        });
+        return new LabelImage(width, height, cc, numComponents);
+    }
+
+    /**
+     * This "labelStrip" method is the first pass over the rows "start" to "end" (exclusive) of a binary image,
+     * ignoring the rows above them.
+     *
+     * @param image binary image
+     * @param cc labels, y * width + x
+     * @param start first row
+     * @param end row after the last row
+     * @return UnionFind forest of the labels given out
+     */
+    private static UnionFind labelStrip(BinaryImage image, int [] cc, int start, int end) {
+        int width = image.getWidth();
+        long [] words = image.getWords();
+        UnionFind labels = new UnionFind((end - start) * width / 16);
+        int [] previous = new int[width];
+        int [] current = new int[width];
+        int [] temp;
+        for (int y = start; y < end; y++) {
+            int offset = image.rowOffset(y);
+            for (int x = 0; x < width; x++)
+                current[x] = (int) (words[offset + (x >>> 6)] >>> x) & 1;
+            labelRow(previous, current, cc, y, width, y > start, labels);
+            temp = previous;
+            previous = current;
+            current = temp;
+        }
+        return labels;
+    }
+
+    /**
+     * This "forEachStrip" method runs an action for each strip 0 to numStrips - 1 on a pool, and waits for them
+     *
+     * @param pool pool to run on
+     * @param numStrips number of strips
+     * @param action action run with each strip number
+     */
+    private static void forEachStrip(ForkJoinPool pool, int numStrips, final IntConsumer action) {
+        List<RecursiveAction> tasks = new ArrayList<RecursiveAction>();
+        for (int s = 0; s < numStrips; s++) {
+            final int strip = s;
+            tasks.add(new RecursiveAction() {
+                @Override
+                protected void compute() {
+                    action.accept(strip);
                 }
+            });
+        }
+        pool.invoke(new RecursiveAction() {
+            @Override
+            protected void compute() {
+                invokeAll(tasks);
             }
+        });
+    }
+
+    /**
+     * This "getConnectedComponents" method labels the 8 connected foreground components of a run length encoded
+     * image, working on runs instead of pixels. Each run takes the label of the runs of the row above that it
+     * overlaps or touches diagonally, and those labels are merged in a union find forest; a run touching none gets
+     * a new label. The runs of both rows are in order of x, so the overlapping runs are found by walking both rows
+     * once. The labels are then resolved to 0, 1, 2, ... in order of first appearance.
+     *
+     * @param runs run length encoded binary image
+     * @return RunComponents foreground components, as lists of runs
+     */
+    public RunComponents getConnectedComponents(RunLengthEncoding runs) {
+        int [] cc = new int[runs.getNumRuns()];
+        UnionFind labels = new UnionFind(runs.getNumRuns() / 4);
+        int label, above;
+
+        for (int y = 0; y < runs.getHeight(); y++) {
+            int previousEnd = runs.getRowStart(y);
+            above = y > 0 ? runs.getRowStart(y - 1) : previousEnd;
+            for (int run = previousEnd; run < runs.getRowStart(y + 1); run++) {
+                int start = runs.getRunStart(run), end = runs.getRunEnd(run);
+                //skip the runs above that end before this run's left diagonal neighbor
+                while (above < previousEnd && runs.getRunEnd(above) < start)
+                    above++;
+                label = -1;
+                for (int i = above; i < previousEnd && runs.getRunStart(i) <= end; i++)
+                    label = merge(label, cc[i], labels);
+                if (label < 0)
+                    label = labels.makeSet();
+                cc[run] = label;
+            }//for 2
+        }//for 1
+        int numComponents = resolveComponents(cc, 0, cc.length, labels);
+        return new RunComponents(runs, cc, numComponents);
+    }
+
+    /**
+     * This "labelRow" method is the first pass for one row: each pixel takes the label of its matching neighbors
+     * (left, up left, up, and up right), whose labels are merged, or a new label if none of them match.
+     *
+     * @param previous pixel values of the row above
+     * @param current pixel values of this row
+     * @param cc labels, y * width + x
+     * @param y row
+     * @param width image width
+     * @param above whether the row above is labelled too
+     * @param labels union find forest of the labels
+     */
+    private static void labelRow(int [] previous, int [] current, int [] cc, int y, int width, boolean above, UnionFind labels) {
+        int offset = y * width;
+        int label, pixel;
+        for (int x = 0; x < width; x++) {
+            pixel = current[x];
+            label = -1;
+            if (x > 0 && pixel == current[x - 1])
+                label = cc[offset + x - 1];
+            if (above) {
+                if (x > 0 && pixel == previous[x - 1])
+                    label = merge(label, cc[offset - width + x - 1], labels);
+                if (pixel == previous[x])
+                    label = merge(label, cc[offset - width + x], labels);
+                if (x < width - 1 && pixel == previous[x + 1])
+                    label = merge(label, cc[offset - width + x + 1], labels);
+            }
+            if (label < 0)
+                label = labels.makeSet();
+            cc[offset + x] = label;
+        }//for
+    }
+
+    private static int merge(int label, int neighbor, UnionFind labels) {
+        if (label < 0 || label == neighbor)
+            return neighbor;
+        return labels.union(label, neighbor);
+    }
+
+    /**
+     * This "resolveComponents" method is the second pass, replacing each label by the number of its component,
+     * numbered in order of first appearance.
+     *
+     * @param cc labels from the first pass, replaced in place
+     * @param from first index of cc to resolve
+     * @param to index after the last one to resolve
+     * @param labels union find forest of the labels
+     * @return int number of components
+     */
+    private static int resolveComponents(int [] cc, int from, int to, UnionFind labels) {
+        int [] componentOf = new int[labels.size()];
+        Arrays.fill(componentOf, -1);
+        int numComponents = 0;
+        int root;
+        for (int i = from; i < to; i++) {
+            root = labels.find(cc[i]);
+            if (componentOf[root] < 0)
+                componentOf[root] = numComponents++;
+            cc[i] = componentOf[root];
         }
-        return cc;
+        return numComponents;
     }
 
+    /**
+     * This "getNumComponents" method counts the distinct labels of a label array, marking the labels seen in
+     * a bit set as large as the largest label (rather than the whole image).
+     *
+     * @param cc labels, each 0 or more
+     * @return int number of distinct labels
+     */
     static int getNumComponents(int [] cc) {
+        long [] visited = new long[(maxLabel(cc) >>> 6) + 1];
         int numComponents = 0;
-        boolean [] visited = new boolean[cc.length];
+        long bit;
         for (int i = 0; i < cc.length; i++) {
-            if (!visited[cc[i]]) {
-                visited[cc[i]] = true;
+            bit = 1L << cc[i];
+            if ((visited[cc[i] >>> 6] & bit) == 0) {
+                visited[cc[i] >>> 6] |= bit;
                 numComponents++;
             }
         }
         return numComponents;
     }
 
-    static int [] renameComponents(int [] cc) {
-        int numComponents = getNumComponents(cc);
-
-        if (numComponents == 1)
-            return cc;
+    private static int maxLabel(int [] cc) {
+        int max = 0;
+        for (int i = 0; i < cc.length; i++) {
+            if (cc[i] > max)
+                max = cc[i];
+        }
+        return max;
+    }
 
-        int [] currentLabels = new int[numComponents];
-        currentLabels[0] = cc[0];
-        int count = 1;
-        int falseCount = 0;
+    /**
+     * This "renameComponents" method renames the labels of a label array to 0, 1, 2, ... in order of first
+     * appearance, in place.
+     *
+     * @param cc labels, each 0 or more, replaced by the renamed labels
+     * @return int [] the same array
+     */
+    static int [] renameComponents(int [] cc) {
+        renameComponents(cc, cc);
+        return cc;
+    }
 
-        for (int i = 1; i < cc.length; i++) {
-            for (int j = 0; j < numComponents; j++) {
-                if (cc[i] != currentLabels[j])
-                    falseCount++;
-            }
-            if (falseCount == numComponents) {
-                if (count >= numComponents)
-                    break;
-                currentLabels[count] = i;
-                count++;
+    /**
+     * This "renameComponents" method renames the labels of a label array to 0, 1, 2, ... in order of first
+     * appearance, with one pass over the labels: the new name of each old label is kept in a table indexed by
+     * the old label, and given out the first time that label is seen.
+     *
+     * @param cc labels, each 0 or more
+     * @param renamed array for the renamed labels, which may be cc itself to rename in place
+     * @return int number of components
+     */
+    static int renameComponents(int [] cc, int [] renamed) {
+        int [] newLabel = new int[maxLabel(cc) + 1];
+        Arrays.fill(newLabel, -1);
+        int numComponents = 0;
+        int label;
+        for (int i = 0; i < cc.length; i++) {
+            label = newLabel[cc[i]];
+            if (label < 0) {
+                label = numComponents++;
+                newLabel[cc[i]] = label;
             }
-
-            falseCount = 0;
+            renamed[i] = label;
         }
+        return numComponents;
+    }
 
-        for (int i = 1; i < cc.length; i++) {
-            for (int j = 0; j < numComponents; j++) {
-                if (cc[i] == currentLabels[j])
-                    cc[i] = j;
-            }
-        }
-        return cc;
+    /**
+     * This "renameComponents" method renames the labels of a label image to 0, 1, 2, ... in order of
+     * first appearance, in place.
+     *
+     * @param labels label image
+     * @return LabelImage with consecutive labels, sharing the label array of the input
+     */
+    static LabelImage renameComponents(LabelImage labels) {
+        return renameComponents(labels, true);
+    }
+
+    /**
+     * This "renameComponents" method renames the labels of a label image to 0, 1, 2, ... in order of
+     * first appearance.
+     *
+     * @param labels label image
+     * @param inPlace true to overwrite the labels of the input, false to leave it unchanged
+     * @return LabelImage with consecutive labels
+     */
+    static LabelImage renameComponents(LabelImage labels, boolean inPlace) {
+        int [] cc = labels.getLabels();
+        int [] renamed = inPlace ? cc : new int[cc.length];
+        int numComponents = renameComponents(cc, renamed);
+        return new LabelImage(labels.getWidth(), labels.getHeight(), renamed, numComponents);
     }
 
     static ArrayList<Point>[] getComponentPoints(int [] cc, int width, int numComponents) {
         ArrayList<Point>[] componentPoints = new ArrayList[numComponents];
-        //System.out.println("(" + i / width + ", " + i % width +")");
-        int i = 0;
-        while (i < numComponents) {
+        for (int i = 0; i < numComponents; i++)
             componentPoints[i] = new ArrayList<Point>();
-            for (int j = 0; j < cc.length; j++) {
-                if (cc[j] == i) {
-                    componentPoints[i].add(new Point(j % width, j / width));
-                }
-            }
-            i++;
-        }
+        //one pass, each point going to the list of its component in raster order
+        for (int j = 0; j < cc.length; j++)
+            componentPoints[cc[j]].add(new Point(j % width, j / width));
 
         return componentPoints;
     }
 
+    static ArrayList<Point>[] getComponentPoints(LabelImage labels) {
+        return getComponentPoints(labels.getLabels(), labels.getWidth(), labels.getNumLabels());
+    }
+
     static int getNumForegroundComponents(int [] cc, int [][] image) {//BufferedImage image) {
         int numComponents = 0;
         int width = image[0].length; //image.getWidth();
@@ -176,28 +498,65 @@ public class ConnectedComponents extends BaseMethods {
         return numComponents;
     }
 
+    /**
+     * This "getComponentPixelIndex" method lists the pixels of every component in two int arrays, rather than a
+     * list of points per component (see ComponentPixelIndex).
+     *
+     * @param labels label image
+     * @return ComponentPixelIndex pixels of every component
+     */
+    static ComponentPixelIndex getComponentPixelIndex(LabelImage labels) {
+        return ComponentPixelIndex.build(labels);
+    }
+
     static ArrayList<ArrayList<Point>> getForegroundComponentPoints(int [] cc, int [][] image) {//BufferedImage image) {
-        int numComponents = 0;
         int width = image[0].length; //image.getWidth();
-        boolean [] visited = new boolean[cc.length];
-        ArrayList<ArrayList<Point>> componentPoints = new ArrayList();
+        ArrayList<ArrayList<Point>> componentPoints = new ArrayList<ArrayList<Point>>();
+        //list of each foreground label, in order of first appearance
+        int [] listOf = new int[maxLabel(cc) + 1];
+        Arrays.fill(listOf, -1);
 
         for (int i = 0; i < cc.length; i++) {
-
-            if (!visited[cc[i]] && image[i / width][i % width] == 1) {//getPixelValue(image, i % width, i / width) == 1) {
-                visited[cc[i]] = true;
-                componentPoints.add(new ArrayList<Point>());
-                for (int j = i; j < cc.length; j++) {
-                    if (visited[cc[i]] && image[j / width][j % width] == 1)
-                        componentPoints.get(numComponents).add(new Point(j / width, j % width));
+            if (image[i / width][i % width] == 1) {
+                if (listOf[cc[i]] < 0) {
+                    listOf[cc[i]] = componentPoints.size();
+                    componentPoints.add(new ArrayList<Point>());
                 }
-                numComponents++;
+                componentPoints.get(listOf[cc[i]]).add(new Point(i / width, i % width));
             }
+        }
+        return componentPoints;
+    }
 
-            else if (!visited[cc[i]])
-                visited[cc[i]] = true;
+    static ArrayList<ArrayList<Point>> getForegroundComponentPoints(LabelImage labels, BinaryImage image) {
+        int width = image.getWidth();
+        int [] cc = labels.getLabels();
+        ArrayList<ArrayList<Point>> componentPoints = new ArrayList<ArrayList<Point>>();
+        //list of each foreground label, in order of first appearance
+        int [] listOf = new int[labels.getNumLabels()];
+        Arrays.fill(listOf, -1);
 
+        for (int i = 0; i < width * image.getHeight(); i++) {
+            if (image.get(i % width, i / width)) {
+                if (listOf[cc[i]] < 0) {
+                    listOf[cc[i]] = componentPoints.size();
+                    componentPoints.add(new ArrayList<Point>());
+                }
+                componentPoints.get(listOf[cc[i]]).add(new Point(i % width, i / width));
+            }
         }
         return componentPoints;
     }
-}
\ No newline at end of file
+
+    /**
+     * This "getForegroundComponentPixelIndex" method lists the pixels of every foreground component in two int
+     * arrays, the components in the same order as getForegroundComponentPoints.
+     *
+     * @param labels label image
+     * @param image binary image the labels were found in
+     * @return ComponentPixelIndex pixels of every foreground component
+     */
+    static ComponentPixelIndex getForegroundComponentPixelIndex(LabelImage labels, BinaryImage image) {
+        return ComponentPixelIndex.buildForeground(labels, image);
+    }
+}
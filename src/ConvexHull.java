@@ -0,0 +1,271 @@
+import java.awt.Point;
+import java.util.Arrays;
+import java.util.Vector;
+
+/**
+ * The "ConvexHull" class is the convex hull of a set of pixels, found with Andrew's monotone chain: the points
+ * are sorted by x (then y) as packed longs, and the lower and upper chains are built with one pass each,
+ * dropping points that do not make a turn. Pixels of a component are already sorted by y (then x), so they
+ * are chained in that order instead, with no sort at all, and only the leftmost and rightmost pixel of each
+ * row are chained when the rows of a component are known (from its runs or its bounding box), since no other
+ * pixel of a row can be a vertex. The vertices are kept in order, counter-clockwise in x/y (which is
+ * clockwise on screen, y being down), without collinear points. The input arrays are not modified.
+ *
+ * @author Daniel Speiser
+ * OCR Project: License Plate Reader
+ *
+ */
+public class ConvexHull {
+    private final int [] xs;
+    private final int [] ys;
+    private final int numVertices;
+
+    private ConvexHull(int [] xs, int [] ys, int numVertices) {
+        this.xs = xs;
+        this.ys = ys;
+        this.numVertices = numVertices;
+    }
+
+    /**
+     * This "of" method returns the convex hull of the first n points of two coordinate arrays
+     * @param xs - x coordinates (0 or more)
+     * @param ys - y coordinates (0 or more)
+     * @param n - number of points
+     * @return ConvexHull - hull of the points
+     */
+    public static ConvexHull of(int [] xs, int [] ys, int n) {
+        long [] points = new long[n];
+        for (int i = 0; i < n; i++)
+            points[i] = ((long) xs[i] << 32) | ys[i];
+        return ofSorted(points, sortUnique(points, n), false);
+    }//of
+
+    /**
+     * This "of" method returns the convex hull of the pixels of one component of a pixel index, which are
+     * in raster order, so they need no sorting
+     * @param index - pixels of the components
+     * @param component - component to get the hull of
+     * @return ConvexHull - hull of the component
+     */
+    public static ConvexHull of(ComponentPixelIndex index, int component) {
+        int n = index.getSize(component);
+        long [] points = new long[n];
+        for (int i = 0; i < n; i++) {
+            int j = index.getStart(component) + i;
+            points[i] = ((long) index.getY(j) << 32) | index.getX(j);
+        }
+        return ofSorted(points, n, true);
+    }//of
+
+    /**
+     * This "of" method returns the convex hull of one component of a label image from the leftmost and
+     * rightmost pixel of each row of its bounding box, the only pixels of a row that can be hull vertices.
+     * Each row is scanned in from both ends, so at most 2 * height points are chained. The scans stop at the
+     * first pixel of the component, which is close to the box edge for a solid character, but a thin
+     * diagonal stroke leaves most of each row to skip, so the worst case is O(width * height) of the box; the
+     * runs of a component (see of(RunComponents, int)) avoid that.
+     * @param labels - label image
+     * @param statistics - statistics of the labels, for the bounding box
+     * @param label - component to get the hull of
+     * @return ConvexHull - hull of the component
+     */
+    public static ConvexHull of(LabelImage labels, ComponentStatistics statistics, int label) {
+        if (labels == null)
+            throw new IllegalArgumentException("The hull of a component needs the label image it was measured on");
+        int [] cc = labels.getLabels();
+        int minX = statistics.getMinX(label), maxX = statistics.getMaxX(label);
+        long [] points = new long[2 * statistics.getHeight(label)];
+        int n = 0;
+        for (int y = statistics.getMinY(label); y <= statistics.getMaxY(label); y++) {
+            int offset = labels.rowOffset(y);
+            int left = minX, right = maxX;
+            //a connected component has a pixel on every row of its box
+            while (cc[offset + left] != label)
+                left++;
+            while (cc[offset + right] != label)
+                right--;
+            n = addRow(points, n, y, left, right);
+        }
+        return ofSorted(points, n, true);
+    }//of
+
+    /**
+     * This "of" method returns the convex hull of one component of a run length encoded image from the
+     * first and last pixel of its runs on each row
+     * @param components - foreground components
+     * @param component - component to get the hull of
+     * @return ConvexHull - hull of the component
+     */
+    public static ConvexHull of(RunComponents components, int component) {
+        RunLengthEncoding runs = components.getRuns();
+        int first = components.getComponentStart(component), last = components.getComponentStart(component + 1);
+        long [] points = new long[2 * (last - first)];
+        int n = 0;
+        for (int i = first; i < last; ) {
+            int y = runs.getRunRow(components.getComponentRun(i));
+            int left = runs.getRunStart(components.getComponentRun(i));
+            //the runs of a row are in order, the last one ends the row
+            while (i + 1 < last && runs.getRunRow(components.getComponentRun(i + 1)) == y)
+                i++;
+            n = addRow(points, n, y, left, runs.getRunEnd(components.getComponentRun(i)) - 1);
+            i++;
+        }
+        return ofSorted(points, n, true);
+    }//of
+
+    /**
+     * This "of" method returns the convex hull of a streamed component from the first and last pixel of its
+     * runs on each row
+     * @param region - finished component
+     * @return ConvexHull - hull of the component
+     */
+    public static ConvexHull of(ComponentRegion region) {
+        long [] points = new long[2 * region.getNumRuns()];
+        int n = 0;
+        for (int i = 0; i < region.getNumRuns(); ) {
+            int y = region.getRunRow(i);
+            int left = region.getRunStart(i);
+            while (i + 1 < region.getNumRuns() && region.getRunRow(i + 1) == y)
+                i++;
+            n = addRow(points, n, y, left, region.getRunEnd(i) - 1);
+            i++;
+        }
+        return ofSorted(points, n, true);
+    }//of
+
+    /**
+     * This "addRow" method adds the extremes of a row as (y << 32) | x, in raster order
+     * @return int - number of points
+     */
+    static int addRow(long [] points, int n, int y, int left, int right) {
+        points[n++] = ((long) y << 32) | left;
+        if (right != left)
+            points[n++] = ((long) y << 32) | right;
+        return n;
+    }//addRow
+
+    /**
+     * This "sortUnique" method sorts packed points and removes duplicates
+     * @return int - number of distinct points, at the start of the array
+     */
+    static int sortUnique(long [] points, int n) {
+        Arrays.sort(points, 0, n);
+        int unique = 0;
+        for (int i = 0; i < n; i++) {
+            if (unique == 0 || points[i] != points[unique - 1])
+                points[unique++] = points[i];
+        }
+        return unique;
+    }//sortUnique
+
+    /**
+     * This "ofSorted" method builds the hull of distinct sorted points, packed as (x << 32) | y, or as
+     * (y << 32) | x when transposed
+     * @param points - sorted points
+     * @param n - number of points
+     * @param transposed - whether y is packed first
+     * @return ConvexHull - hull of the points
+     */
+    static ConvexHull ofSorted(long [] points, int n, boolean transposed) {
+        if (n < 3)
+            return unpack(points, n, transposed);
+        //the hull has at most n + 1 entries while it is built (the first point closes it)
+        long [] hull = new long[n + 1];
+        int size = 0;
+        //lower chain, left to right
+        for (int i = 0; i < n; i++) {
+            while (size >= 2 && cross(hull[size - 2], hull[size - 1], points[i]) <= 0)
+                size--;
+            hull[size++] = points[i];
+        }
+        //upper chain, right to left
+        int lower = size + 1;
+        for (int i = n - 2; i >= 0; i--) {
+            while (size >= lower && cross(hull[size - 2], hull[size - 1], points[i]) <= 0)
+                size--;
+            hull[size++] = points[i];
+        }
+        size--; //the last point is the first one again
+        return unpack(hull, size, transposed);
+    }//ofSorted
+
+    /**
+     * This "unpack" method unpacks hull vertices. Swapping x and y mirrors the polygon, so transposed
+     * vertices are also reversed to stay counter-clockwise.
+     */
+    private static ConvexHull unpack(long [] hull, int size, boolean transposed) {
+        int [] xs = new int[size], ys = new int[size];
+        for (int i = 0; i < size; i++) {
+            int first = (int) (hull[i] >>> 32), second = (int) hull[i];
+            int j = transposed ? size - 1 - i : i;
+            xs[j] = transposed ? second : first;
+            ys[j] = transposed ? first : second;
+        }
+        return new ConvexHull(xs, ys, size);
+    }//unpack
+
+    /**
+     * This "cross" method returns the cross product of OA and OB, positive for a counter-clockwise turn
+     */
+    private static long cross(long o, long a, long b) {
+        long ox = o >>> 32, oy = (int) o;
+        return ((a >>> 32) - ox) * ((int) b - oy) - ((int) a - oy) * ((b >>> 32) - ox);
+    }//cross
+
+    public int getNumVertices() {
+        return numVertices;
+    }
+
+    public int getX(int vertex) {
+        return xs[vertex];
+    }
+
+    public int getY(int vertex) {
+        return ys[vertex];
+    }
+
+    /**
+     * This "area" method returns the area of the hull polygon through the pixel centers (shoelace formula)
+     * @return double - area
+     */
+    public double area() {
+        long twiceArea = 0;
+        for (int i = 0, j = numVertices - 1; i < numVertices; j = i++)
+            twiceArea += (long) xs[j] * ys[i] - (long) xs[i] * ys[j];
+        return Math.abs(twiceArea) / 2.0;
+    }//area
+
+    /**
+     * This "getNumPixels" method returns the number of pixels inside or on the hull, the lattice points of the
+     * polygon, with Pick's theorem: area + boundary points / 2 + 1
+     * @return long - number of pixels covered by the hull
+     */
+    public long getNumPixels() {
+        long twiceArea = 0, boundary = 0;
+        for (int i = 0, j = numVertices - 1; i < numVertices; j = i++) {
+            twiceArea += (long) xs[j] * ys[i] - (long) xs[i] * ys[j];
+            boundary += gcd(Math.abs(xs[i] - xs[j]), Math.abs(ys[i] - ys[j]));
+        }
+        return (Math.abs(twiceArea) + boundary) / 2 + 1;
+    }//getNumPixels
+
+    private static int gcd(int a, int b) {
+        while (b != 0) {
+            int t = a % b;
+            a = b;
+            b = t;
+        }
+        return a;
+    }//gcd
+
+    /**
+     * This "toPoints" method returns the hull vertices as points, as Measurements.quickHull does
+     * @return Vector of hull points
+     */
+    public Vector<Point> toPoints() {
+        Vector<Point> points = new Vector<Point>(numVertices);
+        for (int i = 0; i < numVertices; i++)
+            points.add(new Point(xs[i], ys[i]));
+        return points;
+    }//toPoints
+}//ConvexHull
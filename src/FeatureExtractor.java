@@ -0,0 +1,324 @@
+import java.util.Arrays;
+
+/**
+ * The "FeatureExtractor" class turns components into rows of numbers that can be compared with those of the
+ * training set. The features of a component, in order, are:
+ *
+ * HU         - the seven Hu moment invariants, from the normalised central moments
+ * NORMALISED - the normalised central moments eta20, eta11, eta02, eta30, eta21, eta12, eta03
+ * SOLIDITY   - component area / pixels inside its convex hull
+ * EULER      - Euler number, 1 - the number of holes
+ * ZONES      - zone rows x zone columns densities: the bounding box is cut into a grid, and each cell holds
+ *              the fraction of its pixels that belong to the component, row by row
+ *
+ * The raw moments come from the ComponentStatistics, the central ones follow from them, and the hull, the
+ * zones and the Euler number come from one pass over the rows of the component (its runs, or its bounding
+ * box in the label image). The features of many components are written into one row-major matrix, a row
+ * per component, which can be reused from plate to plate. An extractor keeps scratch buffers, so it must not
+ * be shared by threads.
+ *
+ * @author Daniel Speiser
+ * OCR Project: License Plate Reader
+ *
+ */
+public class FeatureExtractor {
+    public static final int HU = 0;
+    public static final int NORMALISED = 7;
+    public static final int SOLIDITY = 14;
+    public static final int EULER = 15;
+    public static final int ZONES = 16;
+
+    private final int zoneRows;
+    private final int zoneColumns;
+    private final int numFeatures;
+
+    //scratch buffers: normalised moments, row extremes for the hull, pixel counts of the zones, runs of two rows
+    private final double [] eta = new double[7];
+    private long [] rowExtremes = new long[64];
+    private final int [] zoneCounts;
+    private int [] previousStart = new int[0], previousEnd = new int[0], currentStart = new int[0], currentEnd = new int[0];
+
+    /**
+     * Creates an extractor with a 4 x 4 zone grid.
+     */
+    public FeatureExtractor() {
+        this(4, 4);
+    }
+
+    /**
+     * @param zoneRows - number of rows of the zone grid
+     * @param zoneColumns - number of columns of the zone grid
+     */
+    public FeatureExtractor(int zoneRows, int zoneColumns) {
+        if (zoneRows < 1 || zoneColumns < 1)
+            throw new IllegalArgumentException("The zone grid needs at least one cell: " + zoneRows + " x " + zoneColumns);
+        this.zoneRows = zoneRows;
+        this.zoneColumns = zoneColumns;
+        this.numFeatures = ZONES + zoneRows * zoneColumns;
+        this.zoneCounts = new int[zoneRows * zoneColumns];
+    }
+
+    /**
+     * @return int - number of features of a component, the length of a row of the feature matrix
+     */
+    public int getNumFeatures() {
+        return numFeatures;
+    }
+
+    public int getZoneRows() {
+        return zoneRows;
+    }
+
+    public int getZoneColumns() {
+        return zoneColumns;
+    }
+
+    /**
+     * This "extract" method writes the features of some components of a label image into a feature matrix
+     * @param statistics - statistics of the components, measured on a label image
+     * @param components - labels of the components, one matrix row each
+     * @param features - matrix to reuse, or null; a new one is made if it is too small
+     * @return double[] - the feature matrix, components.length x getNumFeatures(), row-major
+     */
+    public double [] extract(ComponentStatistics statistics, int [] components, double [] features) {
+        features = ensureCapacity(features, components.length);
+        for (int i = 0; i < components.length; i++)
+            extract(statistics, components[i], features, i * numFeatures);
+        return features;
+    }//extract
+
+    /**
+     * This "extract" method writes the features of every component of a run length encoded image into a
+     * feature matrix
+     * @param components - foreground components
+     * @param features - matrix to reuse, or null; a new one is made if it is too small
+     * @return double[] - the feature matrix, getNumComponents() x getNumFeatures(), row-major
+     */
+    public double [] extract(RunComponents components, double [] features) {
+        features = ensureCapacity(features, components.getNumComponents());
+        ComponentStatistics statistics = ComponentStatistics.fromRuns(components);
+        for (int c = 0; c < components.getNumComponents(); c++)
+            extract(components, statistics, c, features, c * numFeatures);
+        return features;
+    }//extract
+
+    /**
+     * This "extract" method writes the features of one component of a label image into a row of a matrix.
+     * The pixels of the component are found by scanning its bounding box, and its runs on each row give the
+     * hull (from the first and the last), the zones, and the Euler number (as for runs, below).
+     * @param statistics - statistics of the components, measured on a label image (not from runs, whose
+     *                     features come from extract(RunComponents, double[]))
+     * @param label - component
+     * @param features - feature matrix
+     * @param offset - index of the first feature of the row
+     */
+    public void extract(ComponentStatistics statistics, int label, double [] features, int offset) {
+        LabelImage labels = statistics.getLabelImage();
+        if (labels == null)
+            throw new IllegalArgumentException("Statistics measured from runs have no label image, use the runs instead");
+        int [] cc = labels.getLabels();
+        int minX = statistics.getMinX(label), maxX = statistics.getMaxX(label);
+        int minY = statistics.getMinY(label), maxY = statistics.getMaxY(label);
+        int n = 0, numRuns = 0, pairs = 0, numPrevious = 0;
+        rowExtremes = ensureCapacity(rowExtremes, 2 * statistics.getHeight(label));
+        int maxRuns = statistics.getWidth(label) / 2 + 1;
+        if (previousStart.length < maxRuns) {
+            previousStart = new int[maxRuns];
+            previousEnd = new int[maxRuns];
+            currentStart = new int[maxRuns];
+            currentEnd = new int[maxRuns];
+        }
+        Arrays.fill(zoneCounts, 0);
+
+        for (int y = minY; y <= maxY; y++) {
+            int row = labels.rowOffset(y);
+            int zoneRow = (y - minY) * zoneRows / statistics.getHeight(label) * zoneColumns;
+            int numCurrent = 0;
+            for (int x = minX; x <= maxX; x++) {
+                if (cc[row + x] == label) {
+                    if (x == minX || cc[row + x - 1] != label)
+                        currentStart[numCurrent] = x;
+                    if (x == maxX || cc[row + x + 1] != label)
+                        currentEnd[numCurrent++] = x + 1;
+                    zoneCounts[zoneRow + (x - minX) * zoneColumns / statistics.getWidth(label)]++;
+                }
+            }
+            n = ConvexHull.addRow(rowExtremes, n, y, currentStart[0], currentEnd[numCurrent - 1] - 1);
+            numRuns += numCurrent;
+            pairs += countPairs(previousStart, previousEnd, numPrevious, currentStart, currentEnd, numCurrent);
+
+            int [] temp = previousStart;
+            previousStart = currentStart;
+            currentStart = temp;
+            temp = previousEnd;
+            previousEnd = currentEnd;
+            currentEnd = temp;
+            numPrevious = numCurrent;
+        }//for
+
+        setMoments(statistics, label, features, offset);
+        features[offset + SOLIDITY] = statistics.getArea(label) / (double) ConvexHull.ofSorted(rowExtremes, n, true).getNumPixels();
+        features[offset + EULER] = numRuns - pairs;
+        setZones(statistics, label, features, offset);
+    }//extract
+
+    /**
+     * This "extract" method writes the features of one run length encoded component into a row of a matrix.
+     * The Euler number is read off the runs: the runs of a component and the 8 connected pairs of runs on
+     * consecutive rows form a connected graph with one independent cycle per hole (a 4 connected region of
+     * other pixels closed in by the component), so the Euler number, 1 - holes, is runs - pairs. Counting the
+     * enclosed background components of the label image instead would miss the holes that the labeller
+     * joins to the outside through a diagonal gap.
+     * @param components - foreground components
+     * @param statistics - statistics of the components, from ComponentStatistics.fromRuns
+     * @param component - component
+     * @param features - feature matrix
+     * @param offset - index of the first feature of the row
+     */
+    public void extract(RunComponents components, ComponentStatistics statistics, int component, double [] features, int offset) {
+        RunLengthEncoding runs = components.getRuns();
+        int first = components.getComponentStart(component), last = components.getComponentStart(component + 1);
+        int minX = statistics.getMinX(component), minY = statistics.getMinY(component);
+        int width = statistics.getWidth(component), height = statistics.getHeight(component);
+        int n = 0, pairs = 0;
+        int previousRowFirst = -1, rowFirst = -1, row = -1, left = -1, right = -1;
+        rowExtremes = ensureCapacity(rowExtremes, 2 * height);
+        Arrays.fill(zoneCounts, 0);
+
+        for (int i = first; i < last; i++) {
+            int run = components.getComponentRun(i);
+            int y = runs.getRunRow(run), start = runs.getRunStart(run), end = runs.getRunEnd(run);
+            if (y != row) {
+                if (row >= 0)
+                    n = ConvexHull.addRow(rowExtremes, n, row, left, right);
+                previousRowFirst = rowFirst;
+                rowFirst = i;
+                row = y;
+                left = start;
+            }
+            right = end - 1;
+
+            //runs of the row above touching this one, diagonals included
+            if (previousRowFirst >= 0) {
+                for (int j = previousRowFirst; j < rowFirst; j++) {
+                    int above = components.getComponentRun(j);
+                    if (runs.getRunStart(above) <= end && runs.getRunEnd(above) >= start)
+                        pairs++;
+                }
+            }
+
+            //split the run across the zone columns
+            int zoneRow = (y - minY) * zoneRows / height * zoneColumns;
+            for (int x = start; x < end; ) {
+                int column = (x - minX) * zoneColumns / width;
+                //first x of the next zone column
+                int next = minX + ((column + 1) * width + zoneColumns - 1) / zoneColumns;
+                int stop = Math.min(end, next);
+                zoneCounts[zoneRow + column] += stop - x;
+                x = stop;
+            }
+        }//for
+        if (row >= 0)
+            n = ConvexHull.addRow(rowExtremes, n, row, left, right);
+
+        setMoments(statistics, component, features, offset);
+        features[offset + SOLIDITY] = statistics.getArea(component) / (double) ConvexHull.ofSorted(rowExtremes, n, true).getNumPixels();
+        features[offset + EULER] = (last - first) - pairs;
+        setZones(statistics, component, features, offset);
+    }//extract
+
+    /**
+     * This "countPairs" method counts the pairs of runs of two consecutive rows that touch, diagonals included
+     * @return int - number of touching pairs
+     */
+    private static int countPairs(int [] aboveStart, int [] aboveEnd, int numAbove, int [] start, int [] end, int num) {
+        int pairs = 0;
+        for (int i = 0, j = 0; i < num; i++) {
+            //skip the runs above that end before this run's left diagonal neighbor
+            while (j < numAbove && aboveEnd[j] < start[i])
+                j++;
+            for (int k = j; k < numAbove && aboveStart[k] <= end[i]; k++)
+                pairs++;
+        }
+        return pairs;
+    }//countPairs
+
+    /**
+     * This "setMoments" method writes the normalised central moments and the Hu invariants of a component.
+     * The central moments come from the raw ones about the centroid, and are normalised by area^(1 + (p + q) / 2)
+     * so that they do not change with scale.
+     */
+    private void setMoments(ComponentStatistics statistics, int label, double [] features, int offset) {
+        double m00 = statistics.getArea(label);
+        double m10 = statistics.getMoment(label, 1, 0), m01 = statistics.getMoment(label, 0, 1);
+        double xc = m10 / m00, yc = m01 / m00;
+
+        //central moments
+        double mu20 = statistics.getMoment(label, 2, 0) - xc * m10;
+        double mu11 = statistics.getMoment(label, 1, 1) - xc * m01;
+        double mu02 = statistics.getMoment(label, 0, 2) - yc * m01;
+        double mu30 = statistics.getMoment(label, 3, 0) - 3 * xc * statistics.getMoment(label, 2, 0) + 2 * xc * xc * m10;
+        double mu21 = statistics.getMoment(label, 2, 1) - 2 * xc * statistics.getMoment(label, 1, 1)
+                - yc * statistics.getMoment(label, 2, 0) + 2 * xc * xc * m01;
+        double mu12 = statistics.getMoment(label, 1, 2) - 2 * yc * statistics.getMoment(label, 1, 1)
+                - xc * statistics.getMoment(label, 0, 2) + 2 * yc * yc * m10;
+        double mu03 = statistics.getMoment(label, 0, 3) - 3 * yc * statistics.getMoment(label, 0, 2) + 2 * yc * yc * m01;
+
+        //normalised central moments
+        double second = m00 * m00, third = second * Math.sqrt(m00);
+        eta[0] = mu20 / second;
+        eta[1] = mu11 / second;
+        eta[2] = mu02 / second;
+        eta[3] = mu30 / third;
+        eta[4] = mu21 / third;
+        eta[5] = mu12 / third;
+        eta[6] = mu03 / third;
+        System.arraycopy(eta, 0, features, offset + NORMALISED, 7);
+
+        //Hu invariants
+        double n20 = eta[0], n11 = eta[1], n02 = eta[2], n30 = eta[3], n21 = eta[4], n12 = eta[5], n03 = eta[6];
+        double a = n30 + n12, b = n21 + n03, c = n30 - 3 * n12, d = 3 * n21 - n03;
+        features[offset + HU] = n20 + n02;
+        features[offset + HU + 1] = (n20 - n02) * (n20 - n02) + 4 * n11 * n11;
+        features[offset + HU + 2] = c * c + d * d;
+        features[offset + HU + 3] = a * a + b * b;
+        features[offset + HU + 4] = c * a * (a * a - 3 * b * b) + d * b * (3 * a * a - b * b);
+        features[offset + HU + 5] = (n20 - n02) * (a * a - b * b) + 4 * n11 * a * b;
+        features[offset + HU + 6] = d * a * (a * a - 3 * b * b) - c * b * (3 * a * a - b * b);
+    }//setMoments
+
+    /**
+     * This "setZones" method writes the density of each zone, from the counts in zoneCounts. Zone column j
+     * covers the x with (x - minX) * zoneColumns / width == j, and likewise for rows, so when the box is
+     * narrower than the grid some zones are empty and get 0.
+     */
+    private void setZones(ComponentStatistics statistics, int label, double [] features, int offset) {
+        int width = statistics.getWidth(label), height = statistics.getHeight(label);
+        for (int i = 0; i < zoneRows; i++) {
+            int rows = cellSize(i, height, zoneRows);
+            for (int j = 0; j < zoneColumns; j++) {
+                int cellArea = rows * cellSize(j, width, zoneColumns);
+                int zone = i * zoneColumns + j;
+                features[offset + ZONES + zone] = cellArea == 0 ? 0 : zoneCounts[zone] / (double) cellArea;
+            }
+        }
+    }//setZones
+
+    /**
+     * @return int - number of pixels out of "length" whose cell is "cell" of "cells"
+     */
+    private static int cellSize(int cell, int length, int cells) {
+        //first pixel of a cell: the smallest p with p * cells / length >= cell
+        return (int) (((long) (cell + 1) * length + cells - 1) / cells - ((long) cell * length + cells - 1) / cells);
+    }//cellSize
+
+    private double [] ensureCapacity(double [] features, int numComponents) {
+        if (features == null || features.length < numComponents * numFeatures)
+            return new double[numComponents * numFeatures];
+        return features;
+    }//ensureCapacity
+
+    private static long [] ensureCapacity(long [] points, int length) {
+        return points.length < length ? new long[Math.max(length, 2 * points.length)] : points;
+    }//ensureCapacity
+}//FeatureExtractor
@@ -0,0 +1,295 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.FloatBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.zip.CRC32;
+
+/**
+ * The "FeatureStore" class keeps the features of the training characters in a binary file, so that a trained
+ * model is memory mapped at startup instead of being rebuilt from the training images. The file holds, in
+ * order (big endian):
+ *
+ * int    MAGIC, int VERSION
+ * long   checksum of the training images (CRC32 of their names and contents)
+ * int    number of samples, number of features, zone rows, zone columns
+ * labels one per sample: short byte length, UTF-8 bytes
+ * floats after padding to a multiple of 4: the mean and the scale (1 / standard deviation) of each feature,
+ *        then the normalised feature matrix, samples x features, row-major
+ *
+ * The features are stored normalised, (value - mean) * scale, and queries are normalised the same way, so no
+ * feature outweighs the others just by its range. The store is rebuilt when the version, the checksum of the
+ * training images or the feature layout does not match.
+ *
+ * @author Daniel Speiser
+ * OCR Project: License Plate Reader
+ *
+ */
+public class FeatureStore {
+    public static final int MAGIC = 0x4F435246; //"OCRF"
+    //bump whenever the features or the file layout change
+    public static final int VERSION = 1;
+
+    private final long checksum;
+    private final String [] labels;
+    private final int numFeatures;
+    private final int zoneRows;
+    private final int zoneColumns;
+    private final float [] mean;
+    private final float [] scale;
+    private final FloatBuffer features;
+
+    private FeatureStore(long checksum, String [] labels, int numFeatures, int zoneRows, int zoneColumns,
+                         float [] mean, float [] scale, FloatBuffer features) {
+        this.checksum = checksum;
+        this.labels = labels;
+        this.numFeatures = numFeatures;
+        this.zoneRows = zoneRows;
+        this.zoneColumns = zoneColumns;
+        this.mean = mean;
+        this.scale = scale;
+        this.features = features;
+    }
+
+    /**
+     * This "open" method maps the store of a set of training images, building it first if it is missing or
+     * out of date
+     * @param storeFile - feature store file
+     * @param trainingFiles - training images
+     * @param extractor - feature extractor the store must match
+     * @return FeatureStore - store of the training features
+     */
+    public static FeatureStore open(File storeFile, File [] trainingFiles, FeatureExtractor extractor) throws IOException {
+        long checksum = checksum(trainingFiles);
+        //the header is read without mapping the file, so that a stale store can still be replaced
+        if (!isCurrent(storeFile, checksum, extractor))
+            write(storeFile, Training.buildTrainingSet(trainingFiles, extractor), extractor, checksum);
+        return load(storeFile);
+    }//open
+
+    /**
+     * This "isCurrent" method reads the header and the labels of a store file and checks that it was written
+     * by this version, from the same training images, with the same features, and that it is as long as they
+     * say, so a truncated store is rebuilt too
+     * @return boolean - whether the store can be used as it is
+     */
+    private static boolean isCurrent(File storeFile, long checksum, FeatureExtractor extractor) {
+        if (!storeFile.isFile())
+            return false;
+        try {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(storeFile)));
+            try {
+                if (in.readInt() != MAGIC || in.readInt() != VERSION || in.readLong() != checksum)
+                    return false;
+                int numSamples = in.readInt();
+                if (numSamples < 0 || in.readInt() != extractor.getNumFeatures()
+                        || in.readInt() != extractor.getZoneRows() || in.readInt() != extractor.getZoneColumns())
+                    return false;
+                long length = 32; //header
+                for (int i = 0; i < numSamples; i++) {
+                    int bytes = in.readUnsignedShort();
+                    in.readFully(new byte[bytes]);
+                    length += 2 + bytes;
+                }
+                length = (length + 3) & ~3;
+                length += 4L * extractor.getNumFeatures() * (2 + (long) numSamples); //mean, scale and the matrix
+                return storeFile.length() == length;
+            } finally {
+                in.close();
+            }
+        } catch (IOException e) {
+            return false; //damaged: rebuild it
+        }
+    }//isCurrent
+
+    /**
+     * This "load" method memory maps a feature store file
+     * @param storeFile - feature store file
+     * @return FeatureStore - store, its feature matrix read from the mapped file
+     */
+    public static FeatureStore load(File storeFile) throws IOException {
+        MappedByteBuffer buffer;
+        RandomAccessFile file = new RandomAccessFile(storeFile, "r");
+        try {
+            buffer = file.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, file.length());
+        } finally {
+            file.close(); //the mapping stays valid
+        }
+        try {
+            if (buffer.getInt() != MAGIC)
+                throw new IOException(storeFile + " is not a feature store");
+            int version = buffer.getInt();
+            if (version != VERSION)
+                throw new IOException(storeFile + " is version " + version + ", expected " + VERSION);
+            long checksum = buffer.getLong();
+            int numSamples = buffer.getInt();
+            int numFeatures = buffer.getInt();
+            int zoneRows = buffer.getInt();
+            int zoneColumns = buffer.getInt();
+
+            String [] labels = new String[numSamples];
+            for (int i = 0; i < numSamples; i++) {
+                byte [] bytes = new byte[buffer.getShort() & 0xFFFF];
+                buffer.get(bytes);
+                labels[i] = new String(bytes, StandardCharsets.UTF_8);
+            }
+            buffer.position((buffer.position() + 3) & ~3);
+            FloatBuffer floats = buffer.slice().asFloatBuffer();
+            float [] mean = new float[numFeatures];
+            float [] scale = new float[numFeatures];
+            floats.get(mean);
+            floats.get(scale);
+            FloatBuffer features = floats.slice();
+            if (features.remaining() != numSamples * numFeatures)
+                throw new IOException(storeFile + " is truncated");
+            return new FeatureStore(checksum, labels, numFeatures, zoneRows, zoneColumns, mean, scale, features.asReadOnlyBuffer());
+        } catch (RuntimeException e) {
+            throw new IOException(storeFile + " is damaged", e);
+        }
+    }//load
+
+    /**
+     * This "write" method writes the features of a training set to a store file. The file is written next to
+     * the old one and then moved over it, so a store is never left half written.
+     * @param storeFile - feature store file
+     * @param trainingSet - features of each training character (one row of the extractor each)
+     * @param extractor - feature extractor the features came from
+     * @param checksum - checksum of the training images
+     */
+    public static void write(File storeFile, HashMap<String, double[]> trainingSet, FeatureExtractor extractor, long checksum) throws IOException {
+        String [] labels = trainingSet.keySet().toArray(new String[0]);
+        Arrays.sort(labels);
+        int numFeatures = extractor.getNumFeatures();
+
+        //mean and scale of each feature
+        double [] mean = new double[numFeatures];
+        double [] scale = new double[numFeatures];
+        for (String label : labels) {
+            for (int f = 0; f < numFeatures; f++)
+                mean[f] += trainingSet.get(label)[f] / labels.length;
+        }
+        for (String label : labels) {
+            for (int f = 0; f < numFeatures; f++) {
+                double d = trainingSet.get(label)[f] - mean[f];
+                scale[f] += d * d / labels.length;
+            }
+        }
+        //rounded to floats first, so that normalise gives queries exactly the values stored
+        float [] meanValues = new float[numFeatures];
+        float [] scaleValues = new float[numFeatures];
+        for (int f = 0; f < numFeatures; f++) {
+            meanValues[f] = (float) mean[f];
+            scaleValues[f] = (float) (scale[f] > 0 ? 1 / Math.sqrt(scale[f]) : 1);
+        }
+
+        File temp = new File(storeFile.getPath() + ".tmp");
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)));
+        try {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(checksum);
+            out.writeInt(labels.length);
+            out.writeInt(numFeatures);
+            out.writeInt(extractor.getZoneRows());
+            out.writeInt(extractor.getZoneColumns());
+            for (String label : labels) {
+                byte [] bytes = label.getBytes(StandardCharsets.UTF_8);
+                out.writeShort(bytes.length);
+                out.write(bytes);
+            }
+            while (out.size() % 4 != 0)
+                out.writeByte(0);
+            for (int f = 0; f < numFeatures; f++)
+                out.writeFloat(meanValues[f]);
+            for (int f = 0; f < numFeatures; f++)
+                out.writeFloat(scaleValues[f]);
+            for (String label : labels) {
+                double [] row = trainingSet.get(label);
+                for (int f = 0; f < numFeatures; f++)
+                    out.writeFloat((float) ((row[f] - meanValues[f]) * scaleValues[f]));
+            }
+        } finally {
+            out.close();
+        }
+        Files.move(temp.toPath(), storeFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }//write
+
+    /**
+     * This "checksum" method returns the CRC32 of the names and contents of a set of files, in name order, so
+     * that any added, removed, renamed or edited training image changes it
+     * @param files - files
+     * @return long - checksum
+     */
+    public static long checksum(File [] files) throws IOException {
+        File [] sorted = files.clone();
+        Arrays.sort(sorted);
+        CRC32 crc = new CRC32();
+        for (File file : sorted) {
+            crc.update(file.getName().getBytes(StandardCharsets.UTF_8));
+            crc.update(Files.readAllBytes(file.toPath()));
+        }
+        return crc.getValue();
+    }//checksum
+
+    /**
+     * This "normalise" method normalises a row of features like the stored ones
+     * @param features - feature matrix
+     * @param offset - index of the first feature of the row
+     * @param normalised - normalised features
+     * @param normalisedOffset - index to write the first normalised feature at
+     */
+    public void normalise(double [] features, int offset, float [] normalised, int normalisedOffset) {
+        for (int f = 0; f < numFeatures; f++)
+            normalised[normalisedOffset + f] = (float) ((features[offset + f] - mean[f]) * scale[f]);
+    }//normalise
+
+    public long getChecksum() {
+        return checksum;
+    }
+
+    public int getNumSamples() {
+        return labels.length;
+    }
+
+    public int getNumFeatures() {
+        return numFeatures;
+    }
+
+    public int getZoneRows() {
+        return zoneRows;
+    }
+
+    public int getZoneColumns() {
+        return zoneColumns;
+    }
+
+    public String getLabel(int sample) {
+        return labels[sample];
+    }
+
+    /**
+     * @return FloatBuffer - read only view of the mapped, normalised feature matrix, samples x features
+     */
+    public FloatBuffer getFeatures() {
+        return features.duplicate();
+    }
+
+    /**
+     * @return float - normalised feature f of a sample
+     */
+    public float getFeature(int sample, int f) {
+        return features.get(sample * numFeatures + f);
+    }
+}//FeatureStore
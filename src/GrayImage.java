@@ -0,0 +1,128 @@
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+
+/**
+ * The "GrayImage" class is an 8 bit grayscale image backed by a primitive byte array, one byte per pixel.
+ * Row y of the image starts at index rowOffset(y) = y * stride of the array, so the pixel at (x, y) is
+ * data[rowOffset(y) + x] & 0xFF. This is the image type passed between the pipeline stages, with
+ * BufferedImage only used when reading files and displaying results.
+ *
+ * @author Daniel Speiser
+ * OCR Project: License Plate Reader
+ *
+ */
+public class GrayImage {
+    private final int width;
+    private final int height;
+    private final int stride;
+    private final byte[] data;
+
+    /**
+     * Creates a new, black gray image.
+     * @param width - image width
+     * @param height - image height
+     */
+    public GrayImage(int width, int height) {
+        this(width, height, new byte[width * height], width);
+    }
+
+    /**
+     * Wraps an existing array of gray values.
+     * @param width - image width
+     * @param height - image height
+     * @param data - gray values, one byte per pixel
+     * @param stride - distance in the array between two rows (at least width)
+     */
+    public GrayImage(int width, int height, byte[] data, int stride) {
+        if (stride < width || data.length < (height - 1) * stride + width)
+            throw new IllegalArgumentException("Gray data too small for a " + width + " x " + height + " image");
+        this.width = width;
+        this.height = height;
+        this.data = data;
+        this.stride = stride;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getStride() {
+        return stride;
+    }
+
+    public byte[] getData() {
+        return data;
+    }
+
+    public int getNumPixels() {
+        return width * height;
+    }
+
+    /**
+     * This "rowOffset" method returns the index in the data array of the first pixel of a row
+     * @param y - row
+     * @return int - index of (0, y)
+     */
+    public int rowOffset(int y) {
+        return y * stride;
+    }
+
+    /**
+     * This "get" method returns the gray value of a pixel
+     * @param x - x coordinate
+     * @param y - y coordinate
+     * @return int - gray value (0-255)
+     */
+    public int get(int x, int y) {
+        return data[y * stride + x] & 0xFF;
+    }
+
+    /**
+     * This "set" method sets the gray value of a pixel
+     * @param x - x coordinate
+     * @param y - y coordinate
+     * @param value - gray value (0-255)
+     */
+    public void set(int x, int y, int value) {
+        data[y * stride + x] = (byte) value;
+    }
+
+    /**
+     * This "fromBufferedImage" method returns the gray values of an image. A gray image made by
+     * BaseMethods.newGrayImage shares its backing array with the result, any other image has the blue channel
+     * of its getRGB value (r = g = b for gray images) copied.
+     * @param image - grayscale image
+     * @return GrayImage - gray values of the image
+     */
+    public static GrayImage fromBufferedImage(BufferedImage image) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        byte[] gray = BaseMethods.getGrayData(image);
+        if (gray != null)
+            return new GrayImage(width, height, gray, width);
+
+        GrayImage result = new GrayImage(width, height);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                result.data[y * width + x] = (byte) BaseMethods.getPixelValue(image, x, y);
+            }//for 2
+        }//for 1
+        return result;
+    }//fromBufferedImage
+
+    /**
+     * This "toBufferedImage" method copies the gray values into a TYPE_BYTE_GRAY image, for display or saving.
+     * @return BufferedImage - 8 bit grayscale image
+     */
+    public BufferedImage toBufferedImage() {
+        BufferedImage image = BaseMethods.newGrayImage(width, height);
+        byte[] pixels = ((DataBufferByte) image.getRaster().getDataBuffer()).getData();
+        for (int y = 0; y < height; y++)
+            System.arraycopy(data, y * stride, pixels, y * width, width);
+        return image;
+    }//toBufferedImage
+}//GrayImage
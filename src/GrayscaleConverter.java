@@ -1,5 +1,6 @@
 import java.awt.*;
-import java.awt.image.BufferedImage;
+import java.awt.color.ColorSpace;
+import java.awt.image.*;
 /**
  * This "GrayscaleConverter" class will be called after a set of images is read in.
  * There are several differnt methods that take an image and convert it to grayscale.
@@ -25,6 +26,185 @@ public class GrayscaleConverter extends BaseMethods {
         //ImageIO.write(gray,"JPG",new File("Gray.jpg"));
         return gray;
     }
+    /**
+     * This "toGray" method converts an image to grayscale using the given per-pixel kernel, and returns
+     * it as a TYPE_INT_RGB image (r = g = b = gray), which is what the "toGrayMethod" methods return.
+     * @param original - input image
+     * @param kernel - per-pixel grayscale conversion
+     * @return grayImage - grayscale image
+     */
+    public BufferedImage toGray(BufferedImage original, GrayscaleKernel kernel) {
+        int width = original.getWidth();
+        int height = original.getHeight();
+        byte[] gray = new byte[width * height];
+        convert(original, kernel, gray, 0, width);
+        //new BufferedImage for grayscale of original, written straight into its backing array
+        BufferedImage grayImage = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        int[] pixels = ((DataBufferInt) grayImage.getRaster().getDataBuffer()).getData();
+        for (int i = 0; i < pixels.length; i++)
+            pixels[i] = (gray[i] & 0xFF) * 0x010101;
+        return grayImage;
+    }//toGray
+    /**
+     * This "toByteGray" method converts an image to grayscale using the given per-pixel kernel, and returns
+     * it as a compact TYPE_BYTE_GRAY image, which stores one byte per pixel instead of the four used by
+     * TYPE_INT_RGB. The gray values are written straight into the new image's backing array.
+     * @param original - input image
+     * @param kernel - per-pixel grayscale conversion
+     * @return grayImage - 8 bit grayscale image
+     */
+    public BufferedImage toByteGray(BufferedImage original, GrayscaleKernel kernel) {
+        BufferedImage grayImage = newGrayImage(original.getWidth(), original.getHeight());
+        convert(original, kernel, getGrayData(grayImage), 0, original.getWidth());
+        return grayImage;
+    }//toByteGray
+    /**
+     * This "toGrayImage" method converts an image to grayscale using the given per-pixel kernel, and returns
+     * the gray values as a primitive GrayImage for the rest of the pipeline.
+     * @param original - input image
+     * @param kernel - per-pixel grayscale conversion
+     * @return GrayImage - grayscale image
+     */
+    public GrayImage toGrayImage(BufferedImage original, GrayscaleKernel kernel) {
+        GrayImage grayImage = new GrayImage(original.getWidth(), original.getHeight());
+        convert(original, kernel, grayImage.getData(), 0, grayImage.getStride());
+        return grayImage;
+    }//toGrayImage
+    /**
+     * This "stretchContrast" method linearly stretches the gray values of an image so that the given low percentile
+     * becomes black and the given high percentile becomes white (e.g. 5 and 95), clipping the values outside that
+     * range. Using percentiles instead of the minimum and maximum keeps a few very dark or bright pixels from
+     * deciding the stretch. The percentiles are read off the statistics, so only the mapping pass scans the image.
+     * @param image - grayscale image
+     * @param statistics - statistics of the image
+     * @param lowPercent - percentile mapped to 0
+     * @param highPercent - percentile mapped to 255
+     * @return GrayImage - contrast stretched image
+     */
+    public GrayImage stretchContrast(GrayImage image, ImageStatistics statistics, double lowPercent, double highPercent) {
+        double low = statistics.percentile(lowPercent);
+        double high = statistics.percentile(highPercent);
+        //lookup table from old to new gray value
+        byte[] table = new byte[256];
+        for (int i = 0; i < 256; i++) {
+            int value = high > low ? (int) Math.round((i - low) * 255.0 / (high - low)) : i;
+            table[i] = (byte) Math.max(0, Math.min(255, value));
+        }//for
+
+        int width = image.getWidth();
+        int height = image.getHeight();
+        GrayImage result = new GrayImage(width, height);
+        byte[] in = image.getData();
+        byte[] out = result.getData();
+        for (int y = 0; y < height; y++) {
+            int offset = image.rowOffset(y);
+            int resultOffset = result.rowOffset(y);
+            for (int x = 0; x < width; x++)
+                out[resultOffset + x] = table[in[offset + x] & 0xFF];
+        }//for
+        return result;
+    }//stretchContrast
+    /**
+     * This "convert" method is the grayscale engine used by every conversion method. It reads the pixels of
+     * the original image straight from its raster's backing array (packed int RGB/ARGB/BGR, and interleaved
+     * byte BGR/ABGR/RGB/gray layouts), runs the kernel on each pixel, and writes the gray values into a
+     * primitive output buffer. Any other layout falls back to reading one row at a time through getRGB. A gray
+     * image goes through its color model like getRGB (a gray sample of 128 is sRGB 188, not 128), but only
+     * once per gray level. Every layout gives the same gray values as the getRGB path, except the gray images of
+     * this project, which hold their gray values (see BaseMethods.newGrayImage).
+     * @param original - input image
+     * @param kernel - per-pixel grayscale conversion
+     * @param gray - output buffer, one byte per pixel
+     * @param offset - index in the output buffer of pixel (0, 0)
+     * @param stride - distance in the output buffer between two rows
+     */
+    public void convert(BufferedImage original, GrayscaleKernel kernel, byte[] gray, int offset, int stride) {
+        //get image height and width for traversal
+        int width = original.getWidth();
+        int height = original.getHeight();
+        WritableRaster raster = original.getRaster();
+        SampleModel sampleModel = raster.getSampleModel();
+        DataBuffer dataBuffer = raster.getDataBuffer();
+        ColorModel colorModel = original.getColorModel();
+        //raw samples are only the true RGB values for non-premultiplied, 8 bit sRGB images (gray ones are looked up)
+        boolean rawSamples = !colorModel.isAlphaPremultiplied() && (colorModel.getColorSpace().isCS_sRGB() || colorModel.getColorSpace().getType() == ColorSpace.TYPE_GRAY);
+        for (int i = 0; i < sampleModel.getNumBands(); i++) {
+            if (sampleModel.getSampleSize(i) != 8)
+                rawSamples = false;
+        }
+        //location of pixel (0, 0) within the sample model (non zero for sub images)
+        int translateX = -raster.getSampleModelTranslateX();
+        int translateY = -raster.getSampleModelTranslateY();
+
+        if (rawSamples && dataBuffer instanceof DataBufferInt && sampleModel instanceof SinglePixelPackedSampleModel
+                && colorModel instanceof DirectColorModel && sampleModel.getNumBands() >= 3) {
+            //packed int layouts: TYPE_INT_RGB, TYPE_INT_ARGB, TYPE_INT_BGR
+            SinglePixelPackedSampleModel packed = (SinglePixelPackedSampleModel) sampleModel;
+            int[] data = ((DataBufferInt) dataBuffer).getData();
+            int scanlineStride = packed.getScanlineStride();
+            int base = dataBuffer.getOffset() + translateY * scanlineStride + translateX;
+            int[] masks = packed.getBitMasks();
+            int[] shifts = packed.getBitOffsets();
+            int redMask = masks[0], greenMask = masks[1], blueMask = masks[2];
+            int redShift = shifts[0], greenShift = shifts[1], blueShift = shifts[2];
+            for (int y = 0; y < height; y++) {
+                int in = base + y * scanlineStride;
+                int out = offset + y * stride;
+                for (int x = 0; x < width; x++) {
+                    int pixel = data[in + x];
+                    gray[out + x] = (byte) kernel.toGray((pixel & redMask) >>> redShift, (pixel & greenMask) >>> greenShift, (pixel & blueMask) >>> blueShift);
+                }//for 2
+            }//for 1
+        } else if (rawSamples && dataBuffer instanceof DataBufferByte && sampleModel instanceof PixelInterleavedSampleModel
+                && colorModel instanceof ComponentColorModel && (sampleModel.getNumBands() >= 3 || sampleModel.getNumBands() == 1)) {
+            //interleaved byte layouts: TYPE_3BYTE_BGR, TYPE_4BYTE_ABGR, TYPE_BYTE_GRAY and decoded RGB(A) images
+            ComponentSampleModel component = (ComponentSampleModel) sampleModel;
+            byte[] data = ((DataBufferByte) dataBuffer).getData();
+            int pixelStride = component.getPixelStride();
+            int scanlineStride = component.getScanlineStride();
+            int base = dataBuffer.getOffset() + translateY * scanlineStride + translateX * pixelStride;
+            int[] bandOffsets = component.getBandOffsets();
+            if (bandOffsets.length == 1) {
+                //a gray sample is not its sRGB value (the gray color space is linear), so each of the 256 samples
+                //goes through the color model once, the same as getRGB, and the pixels are looked up. The
+                //images of this project hold the gray values themselves (see BaseMethods.newGrayImage).
+                boolean nativeGray = isNativeGray(original);
+                byte[] table = new byte[256];
+                byte[] sample = new byte[1];
+                for (int v = 0; v < 256; v++) {
+                    sample[0] = (byte) v;
+                    int pixel = nativeGray ? v * 0x010101 : colorModel.getRGB(sample);
+                    table[v] = (byte) kernel.toGray((pixel >> 16) & 0xFF, (pixel >> 8) & 0xFF, pixel & 0xFF);
+                }//for
+                for (int y = 0; y < height; y++) {
+                    int in = base + y * scanlineStride + bandOffsets[0];
+                    int out = offset + y * stride;
+                    for (int x = 0; x < width; x++, in += pixelStride)
+                        gray[out + x] = table[data[in] & 0xFF];
+                }//for
+                return;
+            }
+            int redOffset = bandOffsets[0], greenOffset = bandOffsets[1], blueOffset = bandOffsets[2];
+            for (int y = 0; y < height; y++) {
+                int in = base + y * scanlineStride;
+                int out = offset + y * stride;
+                for (int x = 0; x < width; x++, in += pixelStride) {
+                    gray[out + x] = (byte) kernel.toGray(data[in + redOffset] & 0xFF, data[in + greenOffset] & 0xFF, data[in + blueOffset] & 0xFF);
+                }//for 2
+            }//for 1
+        } else {
+            //any other layout goes through the color model, but only one row at a time and without new Colors
+            int[] row = new int[width];
+            for (int y = 0; y < height; y++) {
+                original.getRGB(0, y, width, 1, row, 0, width);
+                int out = offset + y * stride;
+                for (int x = 0; x < width; x++) {
+                    int pixel = row[x];
+                    gray[out + x] = (byte) kernel.toGray((pixel >> 16) & 0xFF, (pixel >> 8) & 0xFF, pixel & 0xFF);
+                }//for 2
+            }//for 1
+        }
+    }//convert
     /**
      * Average Method
      *
@@ -37,28 +217,7 @@ public class GrayscaleConverter extends BaseMethods {
      * Seven grayscale conversion algorithms (with pseudocode and VB6 source code)
      */
     public BufferedImage toGrayMethod1(BufferedImage original) {
-        //new BufferedImage for grayscale of original
-        BufferedImage grayImage = new BufferedImage(original.getWidth(), original.getHeight(), BufferedImage.TYPE_INT_RGB);
-        //declaration of four colors to be used for getting and setting RGB values
-        int red, green, blue, gray;
-        //get image height and width for traversal
-        int width = original.getWidth();
-        int height = original.getHeight();
-        //traverse through image, retrieve a pixel's RGB value
-        //convert the pixel RGB value to gray based on specified method
-        for (int i = 0; i < width; i++) {
-            for (int j = 0; j < height; j++) {
-                Color c = new Color(original.getRGB(i, j));
-                red = c.getRed();
-                green = c.getGreen();
-                blue = c.getBlue();
-                gray = (red + blue + green) / 3;
-                //averaging method
-                Color grayColor = new Color(gray, gray, gray);
-                grayImage.setRGB(i, j, grayColor.getRGB());
-            }//for 2
-        }//for 1
-        return grayImage;
+        return toGray(original, GrayscaleKernel.AVERAGE);
     }//toGrayMethod1
     /**
      * Luminosity Method
@@ -72,27 +231,7 @@ public class GrayscaleConverter extends BaseMethods {
      * Seven grayscale conversion algorithms (with pseudocode and VB6 source code)
      */
     public BufferedImage toGrayMethod2(BufferedImage original) {
-        //new BufferedImage for grayscale of original
-        BufferedImage grayImage = new BufferedImage(original.getWidth(), original.getHeight(), BufferedImage.TYPE_INT_RGB);
-        //declaration of four colors to be used for getting and setting RGB values
-        int red, green, blue, gray;
-        //get image height and width for traversal
-        int width = original.getWidth();
-        int height = original.getHeight();
-        //traverse through image, retrieve a pixel's RGB value
-        //convert the pixel RGB value to gray based on specified method
-        for (int i = 0; i < width; i++) {
-            for (int j = 0; j < height; j++) {
-                Color c = new Color(original.getRGB(i, j));
-                red = c.getRed();
-                green = c.getGreen();
-                blue = c.getBlue();
-                gray = (int)(red * 0.299 + green * 0.587 + blue * 0.114);
-                Color grayColor = new Color(gray, gray, gray);
-                grayImage.setRGB(i, j, grayColor.getRGB());
-            }//for 2
-        }//for 1
-        return grayImage;
+        return toGray(original, GrayscaleKernel.LUMINOSITY);
     }//toGrayMethod2
     /**
      * Desaturation Method
@@ -106,28 +245,7 @@ public class GrayscaleConverter extends BaseMethods {
      * Seven grayscale conversion algorithms (with pseudocode and VB6 source code)
      */
     public BufferedImage toGrayMethod3(BufferedImage original) {
-        //new BufferedImage for grayscale of original
-        BufferedImage grayImage = new BufferedImage(original.getWidth(), original.getHeight(), BufferedImage.TYPE_INT_RGB);
-        //declaration of four colors to be used for getting and setting RGB values
-        int red, green, blue, gray;
-        //get image height and width for traversal
-        int width = original.getWidth();
-        int height = original.getHeight();
-        //traverse through image, retrieve a pixel's RGB value
-        //convert the pixel RGB value to gray based on specified method
-        for (int i = 0; i < width; i++) {
-            for (int j = 0; j < height; j++) {
-                Color c = new Color(original.getRGB(i, j));
-                red = c.getRed();
-                green = c.getGreen();
-                blue = c.getBlue();
-                gray = (max(red, green, blue) + min(red, green, blue) ) / 2;
-                //Desaturation method
-                Color grayColor = new Color(gray, gray, gray);
-                grayImage.setRGB(i, j, grayColor.getRGB());
-            }//for 2
-        }//for 1
-        return grayImage;
+        return toGray(original, GrayscaleKernel.DESATURATION);
     }//toGrayMethod3
     /**
      * MAX Decomposition Method
@@ -141,28 +259,7 @@ public class GrayscaleConverter extends BaseMethods {
      * Seven grayscale conversion algorithms (with pseudocode and VB6 source code)
      */
     public BufferedImage toGrayMethod4a(BufferedImage original) {
-        //new BufferedImage for grayscale of original
-        BufferedImage grayImage = new BufferedImage(original.getWidth(), original.getHeight(), BufferedImage.TYPE_INT_RGB);
-        //declaration of four colors to be used for getting and setting RGB values
-        int red, green, blue, gray;
-        //get image height and width for traversal
-        int width = original.getWidth();
-        int height = original.getHeight();
-        //traverse through image, retrieve a pixel's RGB value
-        //convert the pixel RGB value to gray based on specified method
-        for (int i = 0; i < width; i++) {
-            for (int j = 0; j < height; j++) {
-                Color c = new Color(original.getRGB(i, j));
-                red = c.getRed();
-                green = c.getGreen();
-                blue = c.getBlue();
-                gray = max(red, green, blue);
-                //MAX Decomposition Method
-                Color grayColor = new Color(gray, gray, gray);
-                grayImage.setRGB(i, j, grayColor.getRGB());
-            }//for 2
-        }//for 1
-        return grayImage;
+        return toGray(original, GrayscaleKernel.MAX_DECOMPOSITION);
     }//toGrayMethod4a
     /**
      * MIN Decomposition Method
@@ -176,28 +273,7 @@ public class GrayscaleConverter extends BaseMethods {
      * Seven grayscale conversion algorithms (with pseudocode and VB6 source code)
      */
     public BufferedImage toGrayMethod4b(BufferedImage original) {
-        //new BufferedImage for grayscale of original
-        BufferedImage grayImage = new BufferedImage(original.getWidth(), original.getHeight(), BufferedImage.TYPE_INT_RGB);
-        //declaration of four colors to be used for getting and setting RGB values
-        int red, green, blue, gray;
-        //get image height and width for traversal
-        int width = original.getWidth();
-        int height = original.getHeight();
-        //traverse through image, retrieve a pixel's RGB value
-        //convert the pixel RGB value to gray based on specified method
-        for (int i = 0; i < width; i++) {
-            for (int j = 0; j < height; j++) {
-                Color c = new Color(original.getRGB(i, j));
-                red = c.getRed();
-                green = c.getGreen();
-                blue = c.getBlue();
-                gray = min(red, green, blue);
-                //MIN Decomposition Method
-                Color grayColor = new Color(gray, gray, gray);
-                grayImage.setRGB(i, j, grayColor.getRGB());
-            }//for 2
-        }//for 1
-        return grayImage;
+        return toGray(original, GrayscaleKernel.MIN_DECOMPOSITION);
     }//toGrayMethod4b
     /**
      * Single Color Channel RED
@@ -211,26 +287,7 @@ public class GrayscaleConverter extends BaseMethods {
      * Seven grayscale conversion algorithms (with pseudocode and VB6 source code)
      */
     public BufferedImage toGrayMethod5a(BufferedImage original) {
-        //new BufferedImage for grayscale of original
-        BufferedImage grayImage = new BufferedImage(original.getWidth(), original.getHeight(), BufferedImage.TYPE_INT_RGB);
-        //declaration of four colors to be used for getting and setting RGB values
-        int red, green, blue, gray;
-        //get image height and width for traversal
-        int width = original.getWidth();
-        int height = original.getHeight();
-        //traverse through image, retrieve a pixel's RGB value
-        //convert the pixel RGB value to gray based on specified method
-        for (int i = 0; i < width; i++) {
-            for (int j = 0; j < height; j++) {
-                Color c = new Color(original.getRGB(i, j));
-                red = c.getRed();
-                gray = red;
-                //Single Color Channel RED
-                Color grayColor = new Color(gray, gray, gray);
-                grayImage.setRGB(i, j, grayColor.getRGB());
-            }//for 2
-        }//for 1
-        return grayImage;
+        return toGray(original, GrayscaleKernel.RED);
     }//toGrayMethod5a
     /**
      * Single Color Channel GREEN
@@ -244,26 +301,7 @@ public class GrayscaleConverter extends BaseMethods {
      * Seven grayscale conversion algorithms (with pseudocode and VB6 source code)
      */
     public BufferedImage toGrayMethod5b(BufferedImage original) {
-        //new BufferedImage for grayscale of original
-        BufferedImage grayImage = new BufferedImage(original.getWidth(), original.getHeight(), BufferedImage.TYPE_INT_RGB);
-        //declaration of four colors to be used for getting and setting RGB values
-        int red, green, blue, gray;
-        //get image height and width for traversal
-        int width = original.getWidth();
-        int height = original.getHeight();
-        //traverse through image, retrieve a pixel's RGB value
-        //convert the pixel RGB value to gray based on specified method
-        for (int i = 0; i < width; i++) {
-            for (int j = 0; j < height; j++) {
-                Color c = new Color(original.getRGB(i, j));
-                green = c.getGreen();
-                gray = green;
-                //Single Color Channel GREEN
-                Color grayColor = new Color(gray, gray, gray);
-                grayImage.setRGB(i, j, grayColor.getRGB());
-            }//for 2
-        }//for 1
-        return grayImage;
+        return toGray(original, GrayscaleKernel.GREEN);
     }//toGrayMethod5b
     /**
      * Single Color Channel BLUE
@@ -277,26 +315,7 @@ public class GrayscaleConverter extends BaseMethods {
      * Seven grayscale conversion algorithms (with pseudocode and VB6 source code)
      */
     public BufferedImage toGrayMethod5c(BufferedImage original) {
-        //new BufferedImage for grayscale of original
-        BufferedImage grayImage = new BufferedImage(original.getWidth(), original.getHeight(), BufferedImage.TYPE_INT_RGB);
-        //declaration of four colors to be used for getting and setting RGB values
-        int red, green, blue, gray;
-        //get image height and width for traversal
-        int width = original.getWidth();
-        int height = original.getHeight();
-        //traverse through image, retrieve a pixel's RGB value
-        //convert the pixel RGB value to gray based on specified method
-        for (int i = 0; i < width; i++) {
-            for (int j = 0; j < height; j++) {
-                Color c = new Color(original.getRGB(i, j));
-                blue = c.getBlue();
-                gray = blue;
-                //Single Color Channel BLUE
-                Color grayColor = new Color(gray, gray, gray);
-                grayImage.setRGB(i, j, grayColor.getRGB());
-            }//for 2
-        }//for 1
-        return grayImage;
+        return toGray(original, GrayscaleKernel.BLUE);
     }//toGrayMethod5c
     /**
      * Custom # of gray shades
@@ -310,31 +329,7 @@ public class GrayscaleConverter extends BaseMethods {
      * Seven grayscale conversion algorithms (with pseudocode and VB6 source code)
      */
     public BufferedImage toGrayMethod6(BufferedImage original) {
-        //new BufferedImage for grayscale of original
-        BufferedImage grayImage = new BufferedImage(original.getWidth(), original.getHeight(), BufferedImage.TYPE_INT_RGB);
-        //declaration of four colors to be used for getting and setting RGB values
-        int red, green, blue, gray;
-        //get image height and width for traversal
-        int width = original.getWidth();
-        int height = original.getHeight();
-        //traverse through image, retrieve a pixel's RGB value
-        //convert the pixel RGB value to gray based on specified method
-        for (int i = 0; i < width; i++) {
-            for (int j = 0; j < height; j++) {
-                Color c = new Color(original.getRGB(i, j));
-                red = c.getRed();
-                green = c.getGreen();
-                blue = c.getBlue();
-
-                int conversionFactor = 255 / (16 - 1);
-                int average = (red + green + blue) / 3;
-                gray = (int)((average / conversionFactor) + 0.5) * conversionFactor;
-                //Single Color Channel BLUE
-                Color grayColor = new Color(gray, gray, gray);
-                grayImage.setRGB(i, j, grayColor.getRGB());
-            }//for 2
-        }//for 1
-        return grayImage;
+        return toGray(original, GrayscaleKernel.shades(16));
     }//toGrayMethod6
     /**
      * Custom # of gray shades
@@ -348,30 +343,6 @@ public class GrayscaleConverter extends BaseMethods {
      * Seven grayscale conversion algorithms (with pseudocode and VB6 source code)
      */
     public BufferedImage toGrayMethodTEST(BufferedImage original) {
-        //new BufferedImage for grayscale of original
-        BufferedImage grayImage = new BufferedImage(original.getWidth(), original.getHeight(), BufferedImage.TYPE_INT_RGB);
-        //declaration of four colors to be used for getting and setting RGB values
-        int red, green, blue, gray;
-        //get image height and width for traversal
-        int width = original.getWidth();
-        int height = original.getHeight();
-        //traverse through image, retrieve a pixel's RGB value
-        //convert the pixel RGB value to gray based on specified method
-        for (int i = 0; i < width; i++) {
-            for (int j = 0; j < height; j++) {
-                Color c = new Color(original.getRGB(i, j));
-                red = c.getRed();
-                green = c.getGreen();
-                blue = c.getBlue();
-
-                int conversionFactor = 255 / (16 - 1);
-                int average = (red + green + blue) / 3;
-                gray = (int)((average / conversionFactor) + 0.5) * conversionFactor;
-                //Single Color Channel BLUE
-                Color grayColor = new Color(gray, gray, gray);
-                grayImage.setRGB(i, j, grayColor.getRGB());
-            }//for 2
-        }//for 1
-        return grayImage;
+        return toGray(original, GrayscaleKernel.shades(16));
     }//toGrayMethod6
 }//GrayscaleConverter
@@ -0,0 +1,56 @@
+/**
+ * The "GrayscaleKernel" interface is a single per-pixel grayscale conversion, taking the red, green and blue
+ * channels of a pixel and returning its 8 bit gray value (0-255). Each of the conversion methods found in
+ * "GrayscaleConverter" is available here as a kernel, so they can all be run by the same raster-backed
+ * conversion loop in "GrayscaleConverter.convert".
+ *
+ * Found on: http://www.tannerhelland.com/3643/
+ * Seven grayscale conversion algorithms (with pseudocode and VB6 source code)
+ *
+ * @author Daniel Speiser
+ * OCR Project: License Plate Reader
+ *
+ */
+public interface GrayscaleKernel {
+    /**
+     * This "toGray" method converts a single pixel to gray.
+     * @param red - red channel (0-255)
+     * @param green - green channel (0-255)
+     * @param blue - blue channel (0-255)
+     * @return int - gray value (0-255)
+     */
+    int toGray(int red, int green, int blue);
+
+    //Average Method
+    GrayscaleKernel AVERAGE = (red, green, blue) -> (red + green + blue) / 3;
+    //Luminosity Method
+    GrayscaleKernel LUMINOSITY = (red, green, blue) -> (int) (red * 0.299 + green * 0.587 + blue * 0.114);
+    //Desaturation Method
+    GrayscaleKernel DESATURATION = (red, green, blue) -> (BaseMethods.max(red, green, blue) + BaseMethods.min(red, green, blue)) / 2;
+    //MAX Decomposition Method
+    GrayscaleKernel MAX_DECOMPOSITION = (red, green, blue) -> BaseMethods.max(red, green, blue);
+    //MIN Decomposition Method
+    GrayscaleKernel MIN_DECOMPOSITION = (red, green, blue) -> BaseMethods.min(red, green, blue);
+    //Single Color Channel RED
+    GrayscaleKernel RED = (red, green, blue) -> red;
+    //Single Color Channel GREEN
+    GrayscaleKernel GREEN = (red, green, blue) -> green;
+    //Single Color Channel BLUE
+    GrayscaleKernel BLUE = (red, green, blue) -> blue;
+
+    /**
+     * This "shades" method returns the "Custom # of gray shades" kernel, which averages the channels and
+     * then rounds the average down to one of the given number of evenly spaced shades.
+     * @param numShades - number of gray shades (2-256)
+     * @return GrayscaleKernel - custom shades kernel
+     */
+    static GrayscaleKernel shades(int numShades) {
+        if (numShades < 2 || numShades > 256)
+            throw new IllegalArgumentException("Number of shades must be between 2 and 256: " + numShades);
+        final int conversionFactor = 255 / (numShades - 1);
+        return (red, green, blue) -> {
+            int average = (red + green + blue) / 3;
+            return (int) ((average / conversionFactor) + 0.5) * conversionFactor;
+        };
+    }//shades
+}//GrayscaleKernel
@@ -0,0 +1,160 @@
+import java.awt.image.BufferedImage;
+import java.awt.image.Raster;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * The "HistogramBuilder" class builds the histogram of a gray image on a ForkJoin pool. The image is split
+ * into bands of rows, each band is counted row by row into its own histogram, and the band histograms are
+ * added together as the tasks are joined, so no two threads ever write to the same counts. Images with fewer
+ * pixels than the serial threshold, such as plate crops and training characters, are counted on the calling
+ * thread instead, where forking would cost more than it saves.
+ *
+ * @author Daniel Speiser
+ * OCR Project: License Plate Reader
+ *
+ */
+public class HistogramBuilder {
+    //images below this many pixels are counted serially
+    public static final int DEFAULT_SERIAL_THRESHOLD = 1 << 20;
+    //number of bands per thread, so threads that finish early can take over another band
+    private static final int BANDS_PER_THREAD = 4;
+
+    private final ForkJoinPool pool;
+    private final int serialThreshold;
+
+    /**
+     * Builds histograms on the common ForkJoin pool, with the default serial threshold.
+     */
+    public HistogramBuilder() {
+        this(ForkJoinPool.commonPool(), DEFAULT_SERIAL_THRESHOLD);
+    }
+
+    /**
+     * @param pool - pool to run the bands on
+     * @param serialThreshold - number of pixels below which the histogram is built on the calling thread
+     */
+    public HistogramBuilder(ForkJoinPool pool, int serialThreshold) {
+        this.pool = pool;
+        this.serialThreshold = serialThreshold;
+    }
+
+    public int getSerialThreshold() {
+        return serialThreshold;
+    }
+
+    /**
+     * This "histogram" method counts the pixels of each gray level of a gray image
+     * @param image - gray image
+     * @return int[] - histogram (256 entries)
+     */
+    public int [] histogram(final GrayImage image) {
+        return build(new BandCounter() {
+            @Override
+            public void count(int start, int end, int [] histogram) {
+                byte[] gray = image.getData();
+                int width = image.getWidth();
+                for (int y = start; y < end; y++) {
+                    int offset = image.rowOffset(y);
+                    for (int x = 0; x < width; x++)
+                        histogram[gray[offset + x] & 0xFF]++;
+                }
+            }
+        }, image.getWidth(), image.getHeight());
+    }//histogram
+
+    /**
+     * This "histogram" method counts the pixel values of a grayscale image, with the same values as
+     * BaseMethods.getPixelValue, a whole row of pixels being read at a time.
+     * @param image - grayscale image
+     * @return int[] - histogram (256 entries)
+     */
+    public int [] histogram(final BufferedImage image) {
+        byte[] gray = BaseMethods.getGrayData(image);
+        if (gray != null)
+            return histogram(new GrayImage(image.getWidth(), image.getHeight(), gray, image.getWidth()));
+
+        final int width = image.getWidth();
+        final boolean byteGray = BaseMethods.isNativeGray(image);
+        return build(new BandCounter() {
+            @Override
+            public void count(int start, int end, int [] histogram) {
+                int [] row = new int[width];
+                Raster raster = image.getRaster();
+                for (int y = start; y < end; y++) {
+                    if (byteGray) {
+                        //gray images of this project store the value itself, getRGB would gamma correct it
+                        raster.getSamples(0, y, width, 1, 0, row);
+                        for (int x = 0; x < width; x++)
+                            histogram[row[x]]++;
+                    } else {
+                        image.getRGB(0, y, width, 1, row, 0, width);
+                        for (int x = 0; x < width; x++)
+                            histogram[row[x] & 0xFF]++;
+                    }
+                }//for
+            }
+        }, width, image.getHeight());
+    }//histogram
+
+    /**
+     * This "build" method counts the rows of an image serially or on the pool, depending on its size
+     * @param counter - counts a band of rows into a histogram
+     * @param width - image width
+     * @param height - image height
+     * @return int[] - histogram (256 entries)
+     */
+    private int [] build(BandCounter counter, int width, int height) {
+        if ((long) width * height < serialThreshold || height < 2) {
+            int [] histogram = new int[256];
+            counter.count(0, height, histogram);
+            return histogram;
+        }
+        int numBands = pool.getParallelism() * BANDS_PER_THREAD;
+        int rowsPerBand = Math.max(1, (height + numBands - 1) / numBands);
+        return pool.invoke(new BandTask(counter, 0, height, rowsPerBand));
+    }//build
+
+    /**
+     * Counts the rows from "start" to "end" (exclusive) of an image into a histogram.
+     */
+    private interface BandCounter {
+        void count(int start, int end, int [] histogram);
+    }//BandCounter
+
+    /**
+     * Counts the rows from "start" to "end" (exclusive), splitting in half until a band has at most
+     * "rowsPerBand" rows, and returns the sum of the band histograms.
+     */
+    private static class BandTask extends RecursiveTask<int[]> {
+        private static final long serialVersionUID = 1L;
+        private final BandCounter counter;
+        private final int start;
+        private final int end;
+        private final int rowsPerBand;
+
+        BandTask(BandCounter counter, int start, int end, int rowsPerBand) {
+            this.counter = counter;
+            this.start = start;
+            this.end = end;
+            this.rowsPerBand = rowsPerBand;
+        }
+
+        @Override
+        protected int[] compute() {
+            if (end - start <= rowsPerBand) {
+                int [] histogram = new int[256];
+                counter.count(start, end, histogram);
+                return histogram;
+            }
+            int middle = (start + end) >>> 1;
+            BandTask top = new BandTask(counter, start, middle, rowsPerBand);
+            top.fork();
+            int [] histogram = new BandTask(counter, middle, end, rowsPerBand).compute();
+            int [] topHistogram = top.join();
+            for (int i = 0; i < 256; i++)
+                histogram[i] += topHistogram[i];
+            return histogram;
+        }//compute
+    }//BandTask
+}//HistogramBuilder
@@ -0,0 +1,221 @@
+/**
+ * The "ImageStatistics" class holds the histogram of a gray image, together with its cumulative pixel
+ * counts and cumulative first and second moments. It is built with one scan of the image, after which the
+ * mean, median, variance, and the sums, counts, means and variances of the background (pixels at or below a
+ * threshold) and foreground (pixels above it) are all read off the 256 gray levels. One instance is shared
+ * by every thresholding method run on the same image.
+ *
+ * @author Daniel Speiser
+ * OCR Project: License Plate Reader
+ *
+ */
+public class ImageStatistics {
+    private final int [] histogram;
+    //cumulative values up to and including each gray level
+    private final int [] cumulativeCount;
+    private final long [] cumulativeSum;
+    private final long [] cumulativeSumOfSquares;
+    private final int numPixels;
+
+    /**
+     * Builds the statistics of a gray image with a single scan of its pixels.
+     * @param image - gray image
+     */
+    public ImageStatistics(GrayImage image) {
+        this(new Thresholding().histogram(image));
+    }
+
+    /**
+     * Builds the statistics of a gray image, counting its histogram with the given builder.
+     * @param image - gray image
+     * @param builder - histogram builder, for a pool or serial threshold of its own
+     */
+    public ImageStatistics(GrayImage image, HistogramBuilder builder) {
+        this(builder.histogram(image));
+    }
+
+    /**
+     * Builds the statistics from an image histogram.
+     * @param histogram - number of pixels of each gray level (256 entries)
+     */
+    public ImageStatistics(int [] histogram) {
+        this.histogram = histogram;
+        cumulativeCount = new int[256];
+        cumulativeSum = new long[256];
+        cumulativeSumOfSquares = new long[256];
+
+        int count = 0;
+        long sum = 0, sumOfSquares = 0;
+        for (int i = 0; i < 256; i++) {
+            count += histogram[i];
+            sum += (long) i * histogram[i];
+            sumOfSquares += (long) i * i * histogram[i];
+            cumulativeCount[i] = count;
+            cumulativeSum[i] = sum;
+            cumulativeSumOfSquares[i] = sumOfSquares;
+        }//for
+        numPixels = count;
+    }
+
+    /**
+     * @return int[] - histogram of the image, shared with this object so it should not be modified
+     */
+    public int [] getHistogram() {
+        return histogram;
+    }
+
+    public int getNumPixels() {
+        return numPixels;
+    }
+
+    /**
+     * This "getSum" method returns the sum of all pixel values
+     * @return long - sum of the pixels
+     */
+    public long getSum() {
+        return cumulativeSum[255];
+    }
+
+    /**
+     * This "getMean" method returns the mean pixel value
+     * @return double - mean
+     */
+    public double getMean() {
+        return (double) getSum() / numPixels;
+    }
+
+    /**
+     * This "getMedian" method returns the median pixel value, which is halfway between the two middle
+     * values for an even number of pixels (the same as sorting all pixels).
+     * @return double - median
+     */
+    public double getMedian() {
+        return percentile(50.0);
+    }
+
+    /**
+     * This "percentile" method returns the value below which the given percentage of pixels fall, read off the
+     * cumulative histogram. Between two pixels of the sorted order the value is linearly interpolated, so
+     * percentile(50) is the median, percentile(0) the minimum and percentile(100) the maximum pixel value.
+     * Robust ranges such as percentile(5) to percentile(95) can be used to normalize or stretch contrast.
+     * @param percent - percentage of pixels (0-100)
+     * @return double - gray value at that percentile
+     */
+    public double percentile(double percent) {
+        if (percent < 0.0 || percent > 100.0)
+            throw new IllegalArgumentException("Percentile must be between 0 and 100: " + percent);
+        //position in the sorted pixel values, 0 to numPixels - 1
+        double position = percent / 100.0 * (numPixels - 1);
+        int lower = (int) Math.floor(position);
+        int lowerValue = valueAtRank(lower);
+        if (position == lower)
+            return lowerValue;
+        return lowerValue + (position - lower) * (valueAtRank(lower + 1) - lowerValue);
+    }
+
+    /**
+     * This "valueAtRank" method returns the value that would be at the given index if all pixel values were sorted
+     * @param rank - index into the sorted pixels (0 to numPixels - 1)
+     * @return int - gray value
+     */
+    public int valueAtRank(int rank) {
+        for (int i = 0; i < 256; i++) {
+            if (cumulativeCount[i] > rank)
+                return i;
+        }
+        return 255;
+    }
+
+    /**
+     * This "getVariance" method returns the variance of the pixel values
+     * @return double - variance
+     */
+    public double getVariance() {
+        double mean = getMean();
+        return (double) cumulativeSumOfSquares[255] / numPixels - mean * mean;
+    }
+
+    /**
+     * This "getStandardDeviation" method returns the standard deviation of the pixel values
+     * @return double - standard deviation
+     */
+    public double getStandardDeviation() {
+        return Math.sqrt(getVariance());
+    }
+
+    /**
+     * This "numPixelsInBackground" method returns the number of pixels at or below the threshold
+     * @param threshold - to classify what is background, and what is foreground.
+     * @return int - number of pixels in the background
+     */
+    public int numPixelsInBackground(int threshold) {
+        return threshold < 0 ? 0 : cumulativeCount[Math.min(threshold, 255)];
+    }
+
+    /**
+     * This "numPixelsInForeground" method returns the number of pixels above the threshold
+     * @param threshold - to classify what is background, and what is foreground.
+     * @return int - number of pixels in the foreground
+     */
+    public int numPixelsInForeground(int threshold) {
+        return numPixels - numPixelsInBackground(threshold);
+    }
+
+    /**
+     * This "sumBackground" method returns the sum of the pixels at or below the threshold
+     * @param threshold - to classify what is background, and what is foreground.
+     * @return long - sum of the background
+     */
+    public long sumBackground(int threshold) {
+        return threshold < 0 ? 0 : cumulativeSum[Math.min(threshold, 255)];
+    }
+
+    /**
+     * This "sumForeground" method returns the sum of the pixels above the threshold
+     * @param threshold - to classify what is background, and what is foreground.
+     * @return long - sum of the foreground
+     */
+    public long sumForeground(int threshold) {
+        return getSum() - sumBackground(threshold);
+    }
+
+    /**
+     * This "averageBackground" method returns the mean of the pixels at or below the threshold
+     * @param threshold - to classify what is background, and what is foreground.
+     * @return double - mean of the background (NaN if it is empty)
+     */
+    public double averageBackground(int threshold) {
+        return (double) sumBackground(threshold) / numPixelsInBackground(threshold);
+    }
+
+    /**
+     * This "averageForeground" method returns the mean of the pixels above the threshold
+     * @param threshold - to classify what is background, and what is foreground.
+     * @return double - mean of the foreground (NaN if it is empty)
+     */
+    public double averageForeground(int threshold) {
+        return (double) sumForeground(threshold) / numPixelsInForeground(threshold);
+    }
+
+    /**
+     * This "varianceBackground" method returns the variance of the pixels at or below the threshold, about their own mean
+     * @param threshold - to classify what is background, and what is foreground.
+     * @return double - variance of the background (NaN if it is empty)
+     */
+    public double varianceBackground(int threshold) {
+        long sumOfSquares = threshold < 0 ? 0 : cumulativeSumOfSquares[Math.min(threshold, 255)];
+        double mean = averageBackground(threshold);
+        return (double) sumOfSquares / numPixelsInBackground(threshold) - mean * mean;
+    }
+
+    /**
+     * This "varianceForeground" method returns the variance of the pixels above the threshold, about their own mean
+     * @param threshold - to classify what is background, and what is foreground.
+     * @return double - variance of the foreground (NaN if it is empty)
+     */
+    public double varianceForeground(int threshold) {
+        long sumOfSquares = cumulativeSumOfSquares[255] - (threshold < 0 ? 0 : cumulativeSumOfSquares[Math.min(threshold, 255)]);
+        double mean = averageForeground(threshold);
+        return (double) sumOfSquares / numPixelsInForeground(threshold) - mean * mean;
+    }
+}//ImageStatistics
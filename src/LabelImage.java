@@ -0,0 +1,75 @@
+/**
+ * The "LabelImage" class holds the connected component label of every pixel of an image in a primitive
+ * int array, row y starting at index rowOffset(y) = y * stride. Labels are in the range 0 to
+ * getNumLabels() - 1, so they can be used directly as indexes into per-component arrays.
+ *
+ * @author Daniel Speiser
+ * OCR Project: License Plate Reader
+ *
+ */
+public class LabelImage {
+    private final int width;
+    private final int height;
+    private final int stride;
+    private final int[] labels;
+    private final int numLabels;
+
+    /**
+     * Wraps an array of labels, laid out as y * width + x.
+     * @param width - image width
+     * @param height - image height
+     * @param labels - label of each pixel
+     * @param numLabels - one more than the largest label
+     */
+    public LabelImage(int width, int height, int[] labels, int numLabels) {
+        if (labels.length < width * height)
+            throw new IllegalArgumentException("Label data too small for a " + width + " x " + height + " image");
+        this.width = width;
+        this.height = height;
+        this.stride = width;
+        this.labels = labels;
+        this.numLabels = numLabels;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getStride() {
+        return stride;
+    }
+
+    public int[] getLabels() {
+        return labels;
+    }
+
+    /**
+     * @return int - one more than the largest label, the size needed for per-label arrays
+     */
+    public int getNumLabels() {
+        return numLabels;
+    }
+
+    /**
+     * This "rowOffset" method returns the index in the label array of the first pixel of a row
+     * @param y - row
+     * @return int - index of (0, y)
+     */
+    public int rowOffset(int y) {
+        return y * stride;
+    }
+
+    /**
+     * This "get" method returns the label of a pixel
+     * @param x - x coordinate
+     * @param y - y coordinate
+     * @return int - label
+     */
+    public int get(int x, int y) {
+        return labels[y * stride + x];
+    }
+}//LabelImage
@@ -2,6 +2,7 @@ import javax.imageio.ImageIO;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.FileFilter;
+import java.io.IOException;
 /**
  *
  * This "Main" class is ran, which makes the initial method calls. This begins
@@ -15,7 +16,11 @@ public class Main {
 
     private static final String trainingPath = "./training";
     private static final String dataPath = "./data";
+    private static final String featureStorePath = "./training.features";
     private static GUI gui = new GUI();
+    //recognition engine: "features" (nearest centroid on shape features) or "templates" (bitmap matching)
+    private static final String engine = System.getProperty("ocr.engine", "features");
+    private static CharacterRecognizer recognizer;
 
     private static File[] getFiles(File fileDirectory) {
         File[] files = fileDirectory.listFiles(new FileFilter() {
@@ -42,37 +47,61 @@ public class Main {
             * is next used for thresholding (using several methods), eventually to
             * be turned into monochrome images.
             */
-            BufferedImage grayscale = gc.toGrayMethod4b(image); //MIN Decomposition Grayscale
-            int maxEntropy = th.maximumEntropyThreshold(grayscale);
-            int mean = (int) th.average(grayscale);
-            int otsu = th.otsuThreshold(grayscale);
-            int median = (int) th.median(grayscale);
-            System.out.println("Threshold values for " + file.getName() + ":\nMean: " + mean + "\nMedian: " + median + "\nMax Entropy: " + maxEntropy + "\nOtsu: " + otsu + "\nFixed: " + 127);
-            BufferedImage [] monochromeImages = new BufferedImage[5];
-            monochromeImages[0] = th.grayToMono(grayscale, maxEntropy);
-            monochromeImages[1] = th.grayToMono(grayscale, mean);
-            monochromeImages[2] = th.grayToMono(grayscale, otsu);
-            monochromeImages[3] = th.grayToMono(grayscale, median);
-            monochromeImages[4] = th.grayToMono(grayscale, 127);
+            GrayImage grayscale = gc.toGrayImage(image, GrayscaleKernel.MIN_DECOMPOSITION); //MIN Decomposition Grayscale
+            ImageStatistics statistics = new ImageStatistics(grayscale); //one scan, shared by every threshold method
+            int maxEntropy = th.maximumEntropyThreshold(statistics);
+            int mean = (int) th.average(statistics);
+            int otsu = th.otsuThreshold(statistics);
+            int median = (int) th.median(statistics);
+            int minError = th.minimumErrorThreshold(statistics);
+            System.out.println("Threshold values for " + file.getName() + ":\nMean: " + mean + "\nMedian: " + median + "\nMax Entropy: " + maxEntropy + "\nOtsu: " + otsu + "\nMin Error: " + minError + "\nFixed: " + 127);
+            BinaryImage votedMonochrome = th.votingSystem(grayscale, new int[] {maxEntropy, mean, otsu, median, 127, minError}); //one pass, no image per threshold
 
-            BufferedImage votedMonochrome = th.votingSystem(monochromeImages);
-
-            gui.addImages(image, grayscale, votedMonochrome, file.getName()); //add images to GUI
+            gui.addImages(image, grayscale.toBufferedImage(), votedMonochrome.toBufferedImage(), file.getName()); //add images to GUI
 
 //          TODO: perform measurements, get training sets, and get/analyze results.
 
-            int [] connComps = cc.getConnectedComponents(votedMonochrome);
+            ComponentStatistics components = cc.measureComponents(votedMonochrome); //labels and measures every component in one pass
 
-            connComps = cc.renameComponents(connComps);
+            //drop the background, frame, specks, and state name before extracting anything
+            ComponentFilter.Result candidates = new ComponentFilter().filter(components, grayscale.getWidth(), grayscale.getHeight());
+            System.out.println(candidates.getReport());
+            int [] characters = sortByX(components, candidates.getKept()); //reading order
 
-            //TODO: Come up with better data structure for points (Unknown number of points with unknown number of components..?)
-//            Vector<Vector<Point>> foregroundComponents = ConnectedComponents.getForegroundComponentPoints(cc, imageArray);
+            if (recognizer != null) {
+                CharacterRecognizer.Result result = recognizer.recognize(components, characters, 3); //whole plate in one call
+                System.out.println("Plate " + file.getName() + ": " + result.getText());
+                for (int i = 0; i < characters.length && result.getK() > 0; i++) {
+                    if (result.getK() > 1) //runner up, when there is more than one training character
+                        System.out.println("  " + result.getLabel(i, 0) + " (" + result.getDistance(i, 0) + "), then " + result.getLabel(i, 1) + " (" + result.getDistance(i, 1) + ")");
+                    else
+                        System.out.println("  " + result.getLabel(i, 0) + " (" + result.getDistance(i, 0) + ")");
+                }
+            }
 
         } catch(Exception e) {
             e.printStackTrace();
         }
 
     }
+
+    /**
+     * This "sortByX" method sorts components left to right, by the left edge of their bounding boxes
+     * @return int[] - sorted copy of the labels
+     */
+    private static int [] sortByX(ComponentStatistics components, int [] kept) {
+        int [] labels = kept.clone(); //the filter result keeps its own order
+        for (int i = 1; i < labels.length; i++) {
+            int label = labels[i];
+            int j = i;
+            while (j > 0 && components.getMinX(labels[j - 1]) > components.getMinX(label)) {
+                labels[j] = labels[j - 1];
+                j--;
+            }
+            labels[j] = label;
+        }
+        return labels;
+    }//sortByX
     /**
      * "main" class runs any and all methods to initialize and complete our software's calculations.
      */
@@ -83,7 +112,20 @@ public class Main {
         File[] trainingFiles = getFiles(trainingDirectory);
         File[] dataFiles = getFiles(dataDirectory);
 
-        //buildTrainingSet(trainingFiles);
+        long start = System.nanoTime();
+        try {
+            if (engine.equals("templates")) {
+                TemplateMatcher matcher = new TemplateMatcher(Training.buildTemplates(trainingFiles), 1);
+                System.out.println("Templates: " + matcher.getNumTemplates() + " characters in " + (System.nanoTime() - start) / 1000000 + " ms");
+                recognizer = matcher;
+            } else {
+                FeatureStore trainingSet = FeatureStore.open(new File(featureStorePath), trainingFiles, new FeatureExtractor()); //rebuilt only when training/ changes
+                System.out.println("Training set: " + trainingSet.getNumSamples() + " characters in " + (System.nanoTime() - start) / 1000000 + " ms");
+                recognizer = new CharacterClassifier(trainingSet).centroids();
+            }
+        } catch (IOException e) {
+            e.printStackTrace(); //no recognition, the plates are still thresholded and filtered
+        }
 
         for (int i = 0; i < dataFiles.length; i++){
             if (dataFiles[i].isFile()){ //this line distinguishes files from directories
@@ -0,0 +1,149 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * The "MeasurementStage" class extracts the features of the components of one or more plates on a ForkJoin
+ * pool. Each component is measured on its own, so the components of all the plates are cut into chunks of
+ * consecutive components, each chunk covering about "chunkArea" bounding box pixels (the work of the
+ * FeatureExtractor scan), and each chunk is a task with its own extractor. Small glyphs are therefore measured
+ * many to a task, while a large component gets a task to itself. Every component writes only its own row of
+ * its plate's feature matrix, and the rows do not depend on which thread measured them, so the results are the
+ * same as those of a serial FeatureExtractor whatever the scheduling. Work with less than one chunk of area is
+ * done on the calling thread.
+ *
+ * The stage fans out FeatureExtractor rather than the separate Measurements methods (convexHull, solidity,
+ * and the moments of ComponentStatistics): the extractor computes the same measurements, in the layout the
+ * classifier reads, in a single scan of each component, where calling Measurements once per measurement would
+ * scan every component again for each.
+ *
+ * @author Daniel Speiser
+ * OCR Project: License Plate Reader
+ *
+ */
+public class MeasurementStage {
+    //bounding box pixels per task
+    public static final int DEFAULT_CHUNK_AREA = 1 << 16;
+
+    private final ForkJoinPool pool;
+    private final int zoneRows;
+    private final int zoneColumns;
+    private final int chunkArea;
+    private final int numFeatures;
+
+    /**
+     * Measures on the common ForkJoin pool, with a 4 x 4 zone grid and the default chunk area.
+     */
+    public MeasurementStage() {
+        this(ForkJoinPool.commonPool(), 4, 4, DEFAULT_CHUNK_AREA);
+    }
+
+    /**
+     * @param pool - pool to run the chunks on
+     * @param zoneRows - number of rows of the zone grid
+     * @param zoneColumns - number of columns of the zone grid
+     * @param chunkArea - bounding box pixels per task, 1 or more
+     */
+    public MeasurementStage(ForkJoinPool pool, int zoneRows, int zoneColumns, int chunkArea) {
+        if (zoneRows < 1 || zoneColumns < 1)
+            throw new IllegalArgumentException("The zone grid needs at least one cell: " + zoneRows + " x " + zoneColumns);
+        if (chunkArea < 1)
+            throw new IllegalArgumentException("A chunk needs at least one pixel: " + chunkArea);
+        this.pool = pool;
+        this.zoneRows = zoneRows;
+        this.zoneColumns = zoneColumns;
+        this.chunkArea = chunkArea;
+        this.numFeatures = new FeatureExtractor(zoneRows, zoneColumns).getNumFeatures();
+    }
+
+    public int getNumFeatures() {
+        return numFeatures;
+    }
+
+    /**
+     * This "measure" method writes the features of some components of a plate into a feature matrix
+     * @param statistics - statistics of the components, measured on a label image
+     * @param components - labels of the components, one matrix row each
+     * @param features - matrix to reuse, or null; a new one is made if it is too small
+     * @return double[] - the feature matrix, components.length x getNumFeatures(), row-major
+     */
+    public double [] measure(ComponentStatistics statistics, int [] components, double [] features) {
+        return measure(new ComponentStatistics[] {statistics}, new int[][] {components}, new double[][] {features})[0];
+    }//measure
+
+    /**
+     * This "measure" method writes the features of some components of each of a batch of plates into a
+     * feature matrix per plate. The chunks run across plate boundaries, so a batch of small plates is shared
+     * out as evenly as one large plate.
+     * @param statistics - statistics of the components of each plate, measured on label images
+     * @param components - labels of the components of each plate, one matrix row each
+     * @param features - matrices to reuse (or null entries, or null); new ones are made if they are too small
+     * @return double[][] - the feature matrix of each plate, components[p].length x getNumFeatures(), row-major
+     */
+    public double [][] measure(final ComponentStatistics [] statistics, final int [][] components, double [][] features) {
+        if (statistics.length != components.length)
+            throw new IllegalArgumentException("Inconsistent Plate Inputs!!!");
+        final double [][] matrices = new double[statistics.length][];
+        for (int p = 0; p < statistics.length; p++) {
+            double [] matrix = features != null && p < features.length ? features[p] : null;
+            matrices[p] = matrix != null && matrix.length >= components[p].length * numFeatures
+                    ? matrix : new double[components[p].length * numFeatures];
+        }
+
+        //cut the components of all plates, in order, into chunks of about chunkArea pixels
+        List<int []> chunks = new ArrayList<int []>();
+        int startPlate = 0, startIndex = 0;
+        long area = 0;
+        for (int p = 0; p < statistics.length; p++) {
+            for (int i = 0; i < components[p].length; i++) {
+                int c = components[p][i];
+                area += (long) statistics[p].getWidth(c) * statistics[p].getHeight(c);
+                if (area >= chunkArea) {
+                    chunks.add(new int[] {startPlate, startIndex, p, i + 1});
+                    startPlate = p;
+                    startIndex = i + 1;
+                    area = 0;
+                }
+            }
+        }
+        if (area > 0)
+            chunks.add(new int[] {startPlate, startIndex, statistics.length - 1, components[statistics.length - 1].length});
+
+        if (chunks.size() <= 1) {
+            for (int [] chunk : chunks)
+                measureChunk(statistics, components, matrices, chunk);
+            return matrices;
+        }
+        final List<RecursiveAction> tasks = new ArrayList<RecursiveAction>();
+        for (final int [] chunk : chunks) {
+            tasks.add(new RecursiveAction() {
+                @Override
+                protected void compute() {
+                    measureChunk(statistics, components, matrices, chunk);
+                }
+            });
+        }
+        pool.invoke(new RecursiveAction() {
+            @Override
+            protected void compute() {
+                invokeAll(tasks);
+            }
+        });
+        return matrices;
+    }//measure
+
+    /**
+     * This "measureChunk" method measures the components from plate chunk[0], index chunk[1], up to plate
+     * chunk[2], index chunk[3] (excluded), with an extractor of its own
+     */
+    private void measureChunk(ComponentStatistics [] statistics, int [][] components, double [][] matrices, int [] chunk) {
+        FeatureExtractor extractor = new FeatureExtractor(zoneRows, zoneColumns);
+        for (int p = chunk[0]; p <= chunk[2]; p++) {
+            int start = p == chunk[0] ? chunk[1] : 0;
+            int end = p == chunk[2] ? chunk[3] : components[p].length;
+            for (int i = start; i < end; i++)
+                extractor.extract(statistics[p], components[p][i], matrices[p], i * numFeatures);
+        }
+    }//measureChunk
+}//MeasurementStage
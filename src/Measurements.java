@@ -3,6 +3,87 @@ import java.util.Vector;
 
 public class Measurements {
 
+    /**
+     * This "quickHull" method returns the convex hull of the pixels of one component of a label image.
+     * @param labels - connected components
+     * @param label - component to get the hull of
+     * @return Vector of hull points
+     */
+    public static Vector<Point> quickHull(LabelImage labels, int label) {
+        Vector<Point> points = new Vector<Point>();
+        int [] cc = labels.getLabels();
+        for (int y = 0; y < labels.getHeight(); y++) {
+            int offset = labels.rowOffset(y);
+            for (int x = 0; x < labels.getWidth(); x++) {
+                if (cc[offset + x] == label)
+                    points.add(new Point(x, y));
+            }
+        }
+        return quickHull(points);
+    }
+
+    /**
+     * This "quickHull" method returns the convex hull of the pixels of one component of a pixel index.
+     * @param index - pixels of the components
+     * @param component - component to get the hull of
+     * @return Vector of hull points
+     */
+    public static Vector<Point> quickHull(ComponentPixelIndex index, int component) {
+        Vector<Point> points = new Vector<Point>(index.getSize(component));
+        for (int i = index.getStart(component); i < index.getStart(component + 1); i++)
+            points.add(new Point(index.getX(i), index.getY(i)));
+        return quickHull(points);
+    }
+
+    /**
+     * This "convexHull" method returns the convex hull of the pixels of one component of a pixel index, with
+     * the monotone chain on primitive arrays (see ConvexHull) rather than quickHull on vectors of points.
+     * @param index - pixels of the components
+     * @param component - component to get the hull of
+     * @return ConvexHull - hull vertices in order
+     */
+    public static ConvexHull convexHull(ComponentPixelIndex index, int component) {
+        return ConvexHull.of(index, component);
+    }
+
+    /**
+     * This "convexHull" method returns the convex hull of one measured component from the extremes of its
+     * rows, at most 2 * height points, rather than from all of its pixels. Finding the extremes scans the
+     * bounding box in from both sides, which for a thin diagonal stroke is most of the box.
+     * @param statistics - statistics of the components, measured on a label image (not from runs, whose
+     *                     hull is ConvexHull.of(RunComponents, int))
+     * @param label - component to get the hull of
+     * @return ConvexHull - hull vertices in order
+     */
+    public static ConvexHull convexHull(ComponentStatistics statistics, int label) {
+        if (statistics.getLabelImage() == null)
+            throw new IllegalArgumentException("Statistics measured from runs have no label image, use the runs instead");
+        return ConvexHull.of(statistics.getLabelImage(), statistics, label);
+    }
+
+    /**
+     * This "solidity" method returns the fraction of the pixels inside the convex hull of a component that
+     * belong to it (1 for a convex component, lower the deeper its concavities and holes).
+     * @param statistics - statistics of the components, measured on a label image (not from runs, see
+     *                     solidity(RunComponents, int))
+     * @param label - component
+     * @return double - component area / hull pixels
+     */
+    public static double solidity(ComponentStatistics statistics, int label) {
+        return statistics.getArea(label) / (double) convexHull(statistics, label).getNumPixels();
+    }
+
+    /**
+     * This "solidity" method returns the fraction of the pixels inside the convex hull of a run length
+     * encoded component that belong to it.
+     * @param components - foreground components
+     * @param component - component
+     * @return double - component area / hull pixels
+     */
+    public static double solidity(RunComponents components, int component) {
+        return components.area(component) / (double) ConvexHull.of(components, component).getNumPixels();
+    }
+
     public static Vector<Point> quickHull(Vector<Point> points) {
         Vector<Point> convexHull = new Vector<Point>();
         if (points.size() < 3)
@@ -0,0 +1,125 @@
+import java.awt.Rectangle;
+
+/**
+ * The "RunComponents" class holds the foreground connected components of a run length encoded image. Each
+ * run has a component label, 0 to getNumComponents() - 1 in order of first appearance, and the runs of each
+ * component are listed together (in raster order), those of component c being getComponentRun(i) for i from
+ * getComponentStart(c) to getComponentStart(c + 1) - 1. Area and bounding box are read off the runs.
+ *
+ * @author Daniel Speiser
+ * OCR Project: License Plate Reader
+ *
+ */
+public class RunComponents {
+    private final RunLengthEncoding runs;
+    private final int [] runLabels;
+    private final int numComponents;
+    private final int [] componentStart;
+    private final int [] componentRuns;
+
+    /**
+     * Groups the runs of each component together, with a counting sort on the run labels.
+     * @param runs - run length encoded image
+     * @param runLabels - component label of each run
+     * @param numComponents - number of components
+     */
+    public RunComponents(RunLengthEncoding runs, int [] runLabels, int numComponents) {
+        this.runs = runs;
+        this.runLabels = runLabels;
+        this.numComponents = numComponents;
+
+        componentStart = new int[numComponents + 1];
+        for (int i = 0; i < runs.getNumRuns(); i++)
+            componentStart[runLabels[i] + 1]++;
+        for (int c = 0; c < numComponents; c++)
+            componentStart[c + 1] += componentStart[c];
+        componentRuns = new int[runs.getNumRuns()];
+        int [] next = componentStart.clone();
+        for (int i = 0; i < runs.getNumRuns(); i++)
+            componentRuns[next[runLabels[i]]++] = i;
+    }
+
+    public RunLengthEncoding getRuns() {
+        return runs;
+    }
+
+    public int getNumComponents() {
+        return numComponents;
+    }
+
+    /**
+     * @return int - component label of a run
+     */
+    public int getLabel(int run) {
+        return runLabels[run];
+    }
+
+    /**
+     * @return int - index in the component run list of the first run of a component (0 to numComponents)
+     */
+    public int getComponentStart(int component) {
+        return componentStart[component];
+    }
+
+    /**
+     * @return int - run at an index of the component run list
+     */
+    public int getComponentRun(int index) {
+        return componentRuns[index];
+    }
+
+    /**
+     * This "getNumRuns" method returns the number of runs of a component
+     * @param component - component label
+     * @return int - number of runs
+     */
+    public int getNumRuns(int component) {
+        return componentStart[component + 1] - componentStart[component];
+    }
+
+    /**
+     * This "area" method returns the number of pixels of a component
+     * @param component - component label
+     * @return int - area
+     */
+    public int area(int component) {
+        int area = 0;
+        for (int i = componentStart[component]; i < componentStart[component + 1]; i++)
+            area += runs.getRunLength(componentRuns[i]);
+        return area;
+    }//area
+
+    /**
+     * This "getBounds" method returns the bounding box of a component
+     * @param component - component label
+     * @return Rectangle - smallest rectangle holding every pixel of the component
+     */
+    public Rectangle getBounds(int component) {
+        int first = componentStart[component], last = componentStart[component + 1] - 1;
+        //runs are in raster order, so the first and last runs are on the top and bottom rows
+        int top = runs.getRunRow(componentRuns[first]);
+        int bottom = runs.getRunRow(componentRuns[last]);
+        int left = Integer.MAX_VALUE, right = 0;
+        for (int i = first; i <= last; i++) {
+            left = Math.min(left, runs.getRunStart(componentRuns[i]));
+            right = Math.max(right, runs.getRunEnd(componentRuns[i]));
+        }
+        return new Rectangle(left, top, right - left, bottom - top + 1);
+    }//getBounds
+
+    /**
+     * This "toLabelImage" method paints the runs into a label image, where background is label 0 and
+     * component c is label c + 1
+     * @return LabelImage - label of every pixel
+     */
+    public LabelImage toLabelImage() {
+        int width = runs.getWidth();
+        int [] labels = new int[width * runs.getHeight()];
+        for (int i = 0; i < runs.getNumRuns(); i++) {
+            int offset = runs.getRunRow(i) * width;
+            for (int x = runs.getRunStart(i); x < runs.getRunEnd(i); x++)
+                labels[offset + x] = runLabels[i] + 1;
+        }
+        return new LabelImage(width, runs.getHeight(), labels, numComponents + 1);
+    }//toLabelImage
+}//RunComponents
@@ -0,0 +1,149 @@
+import java.util.Arrays;
+
+/**
+ * The "RunLengthEncoding" class holds the foreground of a binary image as horizontal runs: a run is a
+ * row "y" and the pixels "start" to "end" (exclusive) of that row, all foreground, with background on both
+ * sides. Runs are stored in raster order in flat arrays, so the runs of row y are the indexes getRowStart(y)
+ * to getRowStart(y + 1) - 1. A plate is mostly long runs of background, so it has far fewer runs than pixels.
+ *
+ * @author Daniel Speiser
+ * OCR Project: License Plate Reader
+ *
+ */
+public class RunLengthEncoding {
+    private final int width;
+    private final int height;
+    private final int numRuns;
+    private final int [] rowStart;
+    private final int [] runRow;
+    private final int [] runStart;
+    private final int [] runEnd;
+
+    private RunLengthEncoding(int width, int height, int numRuns, int [] rowStart, int [] runRow, int [] runStart, int [] runEnd) {
+        this.width = width;
+        this.height = height;
+        this.numRuns = numRuns;
+        this.rowStart = rowStart;
+        this.runRow = runRow;
+        this.runStart = runStart;
+        this.runEnd = runEnd;
+    }
+
+    /**
+     * This "encode" method finds the foreground runs of each row of a binary image, jumping from one
+     * run boundary to the next with Long.numberOfTrailingZeros instead of testing each pixel.
+     * @param image - binary image
+     * @return RunLengthEncoding - foreground runs of the image
+     */
+    public static RunLengthEncoding encode(BinaryImage image) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int stride = image.getStride();
+        long [] words = image.getWords();
+
+        int [] rowStart = new int[height + 1];
+        int capacity = Math.max(16, height * 4);
+        int [] runRow = new int[capacity];
+        int [] runStart = new int[capacity];
+        int [] runEnd = new int[capacity];
+        int numRuns = 0;
+
+        for (int y = 0; y < height; y++) {
+            rowStart[y] = numRuns;
+            int offset = image.rowOffset(y);
+            int x = 0;
+            while (x < width) {
+                int start = nextBit(words, offset, stride, x, 0L);
+                if (start >= width)
+                    break;
+                //padding bits are clear, so a run ends at the width at the latest
+                int end = Math.min(nextBit(words, offset, stride, start, -1L), width);
+                if (numRuns == runRow.length) {
+                    runRow = Arrays.copyOf(runRow, numRuns * 2);
+                    runStart = Arrays.copyOf(runStart, numRuns * 2);
+                    runEnd = Arrays.copyOf(runEnd, numRuns * 2);
+                }
+                runRow[numRuns] = y;
+                runStart[numRuns] = start;
+                runEnd[numRuns] = end;
+                numRuns++;
+                x = end;
+            }//while
+        }//for
+        rowStart[height] = numRuns;
+        return new RunLengthEncoding(width, height, numRuns, rowStart, runRow, runStart, runEnd);
+    }//encode
+
+    /**
+     * This "nextBit" method returns the first pixel at or after x that is foreground (flip = 0) or background
+     * (flip = -1) in a row of packed words.
+     * @return int - x of that pixel, or stride * 64 if there is none
+     */
+    static int nextBit(long [] words, int offset, int stride, int x, long flip) {
+        int i = x >>> 6;
+        if (i >= stride)
+            return stride << 6;
+        long word = (words[offset + i] ^ flip) & (-1L << x);
+        while (word == 0) {
+            if (++i == stride)
+                return stride << 6;
+            word = words[offset + i] ^ flip;
+        }
+        return (i << 6) + Long.numberOfTrailingZeros(word);
+    }//nextBit
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getNumRuns() {
+        return numRuns;
+    }
+
+    /**
+     * This "getRowStart" method returns the index of the first run of a row, the runs of row y being
+     * getRowStart(y) to getRowStart(y + 1) - 1
+     * @param y - row (0 to height)
+     * @return int - index of the first run of the row
+     */
+    public int getRowStart(int y) {
+        return rowStart[y];
+    }
+
+    public int getRunRow(int run) {
+        return runRow[run];
+    }
+
+    /**
+     * @return int - x of the first pixel of a run
+     */
+    public int getRunStart(int run) {
+        return runStart[run];
+    }
+
+    /**
+     * @return int - x one past the last pixel of a run
+     */
+    public int getRunEnd(int run) {
+        return runEnd[run];
+    }
+
+    public int getRunLength(int run) {
+        return runEnd[run] - runStart[run];
+    }
+
+    /**
+     * This "countForeground" method returns the number of foreground pixels, the sum of the run lengths
+     * @return int - number of foreground pixels
+     */
+    public int countForeground() {
+        int count = 0;
+        for (int i = 0; i < numRuns; i++)
+            count += runEnd[i] - runStart[i];
+        return count;
+    }//countForeground
+}//RunLengthEncoding
@@ -0,0 +1,257 @@
+import java.util.Arrays;
+
+/**
+ * The "StreamingComponentLabeller" class labels the 8 connected foreground components of a binary image that
+ * is fed to it one row at a time, top to bottom, and hands each component to a listener as soon as it is
+ * finished, that is as soon as a row comes in that it does not reach. Only the runs of the previous and the
+ * current row are kept, along with the components still open, so the memory used depends on the width of the
+ * image and not its height, and measuring or classifying a character can start while the rows below it are
+ * still being read.
+ *
+ * Runs are packed in a long as (row << 42) | (start << 21) | end, so rows and widths must be below 2^21
+ * (MAX_SIZE).
+ *
+ * @author Daniel Speiser
+ * OCR Project: License Plate Reader
+ *
+ */
+public class StreamingComponentLabeller {
+    //rows and columns must fit in the 21 bits they are packed into
+    public static final int MAX_SIZE = 1 << 21;
+
+    /**
+     * Receives each component once it is finished.
+     */
+    public interface Listener {
+        void componentFinished(ComponentRegion region);
+    }//Listener
+
+    private final int width;
+    private final int stride;
+    private final Listener listener;
+    //next row to be added
+    private int y;
+    private int numFinished;
+
+    //runs of the previous and the current row, and the component of each run
+    private int [] previousStart, previousEnd, currentStart, currentEnd;
+    private OpenComponent [] previousComponent, currentComponent;
+    private int numPrevious, numCurrent;
+    //row buffer for rows that are thresholded on the way in
+    private final long [] rowWords;
+
+    /**
+     * @param width - image width, below MAX_SIZE
+     * @param listener - receives each component once it is finished
+     */
+    public StreamingComponentLabeller(int width, Listener listener) {
+        if (width < 0 || width >= MAX_SIZE)
+            throw new IllegalArgumentException("Width must be below " + MAX_SIZE + ": " + width);
+        this.width = width;
+        this.stride = (width + 63) >>> 6;
+        this.listener = listener;
+        //a row has at most one run for every two pixels
+        int maxRuns = (width + 1) / 2;
+        previousStart = new int[maxRuns];
+        previousEnd = new int[maxRuns];
+        currentStart = new int[maxRuns];
+        currentEnd = new int[maxRuns];
+        previousComponent = new OpenComponent[maxRuns];
+        currentComponent = new OpenComponent[maxRuns];
+        rowWords = new long[stride];
+    }
+
+    /**
+     * This "label" method streams every row of a binary image through a new labeller
+     * @param image - binary image
+     * @param listener - receives each component once it is finished
+     */
+    public static void label(BinaryImage image, Listener listener) {
+        StreamingComponentLabeller labeller = new StreamingComponentLabeller(image.getWidth(), listener);
+        for (int y = 0; y < image.getHeight(); y++)
+            labeller.addRow(image.getWords(), image.rowOffset(y));
+        labeller.finish();
+    }//label
+
+    /**
+     * This "addRow" method thresholds the next row of a gray image and labels it, pixels at or below the
+     * threshold being foreground (the same as Thresholding.grayToBinary)
+     * @param gray - gray values
+     * @param offset - index of the first pixel of the row
+     * @param threshold - threshold
+     */
+    public void addRow(byte [] gray, int offset, int threshold) {
+        Arrays.fill(rowWords, 0L);
+        for (int x = 0; x < width; x++) {
+            if ((gray[offset + x] & 0xFF) <= threshold)
+                rowWords[x >>> 6] |= 1L << x;
+        }
+        addRow(rowWords, 0);
+    }//addRow
+
+    /**
+     * This "addRow" method labels the next row, given as packed words like a row of a BinaryImage (with the
+     * bits past the width clear), and finishes the components that the row does not reach.
+     * @param words - packed foreground bits
+     * @param offset - index of the first word of the row
+     */
+    public void addRow(long [] words, int offset) {
+        if (y >= MAX_SIZE)
+            throw new IllegalArgumentException("Only " + MAX_SIZE + " rows can be streamed");
+        //find the runs of the row, and connect each to the runs above it
+        numCurrent = 0;
+        int above = 0;
+        int x = 0;
+        while (x < width) {
+            int start = RunLengthEncoding.nextBit(words, offset, stride, x, 0L);
+            if (start >= width)
+                break;
+            int end = Math.min(RunLengthEncoding.nextBit(words, offset, stride, start, -1L), width);
+
+            //skip the runs above that end before this run's left diagonal neighbor
+            while (above < numPrevious && previousEnd[above] < start)
+                above++;
+            OpenComponent component = null;
+            for (int i = above; i < numPrevious && previousStart[i] <= end; i++)
+                component = merge(component, previousComponent[i].find());
+            if (component == null)
+                component = new OpenComponent();
+            component.add(y, start, end);
+
+            currentStart[numCurrent] = start;
+            currentEnd[numCurrent] = end;
+            currentComponent[numCurrent] = component;
+            numCurrent++;
+            x = end;
+        }//while
+
+        //components of the row above that got no run in this row are finished
+        for (int i = 0; i < numPrevious; i++) {
+            OpenComponent component = previousComponent[i].find();
+            if (component.lastRow != y)
+                finish(component);
+            previousComponent[i] = null;
+        }
+
+        int [] temp = previousStart;
+        previousStart = currentStart;
+        currentStart = temp;
+        temp = previousEnd;
+        previousEnd = currentEnd;
+        currentEnd = temp;
+        OpenComponent [] tempComponents = previousComponent;
+        previousComponent = currentComponent;
+        currentComponent = tempComponents;
+        numPrevious = numCurrent;
+        y++;
+    }//addRow
+
+    /**
+     * This "finish" method ends the image, finishing the components that reach its last row
+     */
+    public void finish() {
+        for (int i = 0; i < numPrevious; i++) {
+            finish(previousComponent[i].find());
+            previousComponent[i] = null;
+        }
+        numPrevious = 0;
+    }//finish
+
+    /**
+     * @return int - number of rows added so far
+     */
+    public int getNumRows() {
+        return y;
+    }
+
+    /**
+     * This "merge" method joins two open components, keeping the one with more runs
+     * @return OpenComponent - the merged component
+     */
+    private OpenComponent merge(OpenComponent a, OpenComponent b) {
+        if (a == null || a == b)
+            return b;
+        if (a.numRuns < b.numRuns) {
+            OpenComponent temp = a;
+            a = b;
+            b = temp;
+        }
+        a.absorb(b);
+        return a;
+    }//merge
+
+    private void finish(OpenComponent component) {
+        if (component.finished)
+            return;
+        component.finished = true;
+        listener.componentFinished(component.toRegion(numFinished++));
+    }//finish
+
+    /**
+     * A component that may still grow. Once it is merged into another component it forwards to it.
+     */
+    private static class OpenComponent {
+        private OpenComponent mergedInto;
+        private long [] runs = new long[4];
+        private int numRuns;
+        private int area;
+        private int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE, maxX = -1, maxY = -1;
+        private int lastRow = -1;
+        private boolean finished;
+
+        OpenComponent find() {
+            OpenComponent component = this;
+            while (component.mergedInto != null)
+                component = component.mergedInto;
+            //point the ones on the way straight at the result
+            OpenComponent next = this;
+            while (next != component) {
+                OpenComponent temp = next.mergedInto;
+                next.mergedInto = component;
+                next = temp;
+            }
+            return component;
+        }//find
+
+        void add(int row, int start, int end) {
+            if (numRuns == runs.length)
+                runs = Arrays.copyOf(runs, numRuns * 2);
+            runs[numRuns++] = ((long) row << 42) | ((long) start << 21) | end;
+            area += end - start;
+            minX = Math.min(minX, start);
+            maxX = Math.max(maxX, end - 1);
+            minY = Math.min(minY, row);
+            maxY = Math.max(maxY, row);
+            lastRow = row;
+        }//add
+
+        void absorb(OpenComponent other) {
+            if (numRuns + other.numRuns > runs.length)
+                runs = Arrays.copyOf(runs, Math.max(runs.length * 2, numRuns + other.numRuns));
+            System.arraycopy(other.runs, 0, runs, numRuns, other.numRuns);
+            numRuns += other.numRuns;
+            area += other.area;
+            minX = Math.min(minX, other.minX);
+            maxX = Math.max(maxX, other.maxX);
+            minY = Math.min(minY, other.minY);
+            maxY = Math.max(maxY, other.maxY);
+            lastRow = Math.max(lastRow, other.lastRow);
+            other.mergedInto = this;
+            other.runs = null;
+        }//absorb
+
+        ComponentRegion toRegion(int id) {
+            //runs were appended per merge, sorting the packed runs puts them back in raster order
+            Arrays.sort(runs, 0, numRuns);
+            int [] rows = new int[numRuns], starts = new int[numRuns], ends = new int[numRuns];
+            int mask = (1 << 21) - 1;
+            for (int i = 0; i < numRuns; i++) {
+                rows[i] = (int) (runs[i] >>> 42);
+                starts[i] = (int) (runs[i] >>> 21) & mask;
+                ends[i] = (int) runs[i] & mask;
+            }
+            runs = null;
+            return new ComponentRegion(id, area, minX, minY, maxX, maxY, rows, starts, ends);
+        }//toRegion
+    }//OpenComponent
+}//StreamingComponentLabeller
@@ -0,0 +1,161 @@
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * The "TemplateMatcher" class recognises characters by comparing their bitmaps with those of the training
+ * characters. Each character is resampled to a GRID_WIDTH x GRID_HEIGHT grid, keeping its aspect ratio and
+ * centering it, so that narrow characters such as "1" and "I" keep their shape. The grid is packed two rows to
+ * a long, bit x of the low or high half being column x of an even or odd row, and the distance between two
+ * grids is the number of cells where they differ: the bit count of their XOR, 24 words at a time. With a
+ * shift tolerance t, the character is also shifted by up to t cells in each direction, and the best score of
+ * all the shifts is kept, which forgives the odd pixel lost or gained at the edges by thresholding. A matcher
+ * keeps scratch grids, so it must not be shared by threads.
+ *
+ * @author Daniel Speiser
+ * OCR Project: License Plate Reader
+ *
+ */
+public class TemplateMatcher implements CharacterRecognizer {
+    public static final int GRID_WIDTH = 32;
+    public static final int GRID_HEIGHT = 48;
+    public static final int WORDS = GRID_WIDTH * GRID_HEIGHT / 64;
+    private static final long ROW_MASK = 0xFFFFFFFFL;
+
+    private final long [] templates;
+    private final String [] labels;
+    private final int numTemplates;
+    private final int shiftTolerance;
+    //scratch grids: the character, and each of its shifts
+    private final long [] grid = new long[WORDS];
+    private final long [] shifts;
+
+    /**
+     * @param templates - packed template of each character name
+     * @param shiftTolerance - number of cells a character may be shifted by in each direction (0 for none)
+     */
+    public TemplateMatcher(HashMap<String, long[]> templates, int shiftTolerance) {
+        if (shiftTolerance < 0)
+            throw new IllegalArgumentException("Shift tolerance cannot be negative: " + shiftTolerance);
+        this.labels = templates.keySet().toArray(new String[0]);
+        Arrays.sort(this.labels);
+        this.numTemplates = labels.length;
+        this.templates = new long[numTemplates * WORDS];
+        for (int t = 0; t < numTemplates; t++)
+            System.arraycopy(templates.get(labels[t]), 0, this.templates, t * WORDS, WORDS);
+        this.shiftTolerance = shiftTolerance;
+        int side = 2 * shiftTolerance + 1;
+        this.shifts = new long[side * side * WORDS];
+    }
+
+    public int getNumTemplates() {
+        return numTemplates;
+    }
+
+    /**
+     * This "resample" method resamples one component of a label image to the template grid, each cell taking
+     * the pixel under its center
+     * @param statistics - statistics of the components, measured on a label image
+     * @param label - component
+     * @param grid - packed grids
+     * @param offset - index of the first word of the grid to write
+     * @return long[] - the packed grids
+     */
+    public static long [] resample(ComponentStatistics statistics, int label, long [] grid, int offset) {
+        LabelImage labels = statistics.getLabelImage();
+        int [] cc = labels.getLabels();
+        int minX = statistics.getMinX(label), minY = statistics.getMinY(label);
+        int width = statistics.getWidth(label), height = statistics.getHeight(label);
+        //pixels per cell, the same in x and y, and the margins that center the character
+        double scale = Math.max((double) width / GRID_WIDTH, (double) height / GRID_HEIGHT);
+        double marginX = (GRID_WIDTH - width / scale) / 2, marginY = (GRID_HEIGHT - height / scale) / 2;
+
+        Arrays.fill(grid, offset, offset + WORDS, 0L);
+        int [] columns = new int[GRID_WIDTH];
+        for (int gx = 0; gx < GRID_WIDTH; gx++)
+            columns[gx] = (int) Math.floor((gx + 0.5 - marginX) * scale);
+        for (int gy = 0; gy < GRID_HEIGHT; gy++) {
+            int y = (int) Math.floor((gy + 0.5 - marginY) * scale);
+            if (y < 0 || y >= height)
+                continue;
+            int row = labels.rowOffset(minY + y) + minX;
+            long bits = 0;
+            for (int gx = 0; gx < GRID_WIDTH; gx++) {
+                if (columns[gx] >= 0 && columns[gx] < width && cc[row + columns[gx]] == label)
+                    bits |= 1L << gx;
+            }
+            grid[offset + (gy >>> 1)] |= bits << ((gy & 1) * GRID_WIDTH);
+        }
+        return grid;
+    }//resample
+
+    /**
+     * This "recognize" method matches each character against every template. The distance of a match is the
+     * number of grid cells that differ, at the best shift.
+     */
+    @Override
+    public CharacterRecognizer.Result recognize(ComponentStatistics components, int [] characters, int k) {
+        if (k < 1)
+            throw new IllegalArgumentException("At least one match must be kept: " + k);
+        k = Math.min(k, numTemplates);
+        int [] nearest = new int[characters.length * k];
+        float [] distances = new float[characters.length * k];
+        int numShifts = (2 * shiftTolerance + 1) * (2 * shiftTolerance + 1);
+        for (int q = 0; q < characters.length; q++) {
+            resample(components, characters[q], grid, 0);
+            int s = 0;
+            for (int dy = -shiftTolerance; dy <= shiftTolerance; dy++) {
+                for (int dx = -shiftTolerance; dx <= shiftTolerance; dx++)
+                    shift(grid, dx, dy, shifts, WORDS * s++);
+            }
+
+            int first = q * k;
+            int found = 0;
+            for (int t = 0; t < numTemplates; t++) {
+                int distance = Integer.MAX_VALUE;
+                for (s = 0; s < numShifts; s++)
+                    distance = Math.min(distance, hammingDistance(shifts, s * WORDS, templates, t * WORDS));
+                if (found == k && distance >= distances[first + k - 1])
+                    continue;
+                //insert into the sorted matches, dropping the worst if they are full
+                int i = found < k ? found++ : k - 1;
+                while (i > 0 && distances[first + i - 1] > distance) {
+                    distances[first + i] = distances[first + i - 1];
+                    nearest[first + i] = nearest[first + i - 1];
+                    i--;
+                }
+                distances[first + i] = distance;
+                nearest[first + i] = t;
+            }//for 2
+        }//for 1
+        return new CharacterRecognizer.Result(labels, nearest, distances, characters.length, k);
+    }//recognize
+
+    /**
+     * This "hammingDistance" method counts the cells that differ between two packed grids
+     */
+    static int hammingDistance(long [] a, int aOffset, long [] b, int bOffset) {
+        int distance = 0;
+        for (int w = 0; w < WORDS; w++)
+            distance += Long.bitCount(a[aOffset + w] ^ b[bOffset + w]);
+        return distance;
+    }//hammingDistance
+
+    /**
+     * This "shift" method moves a packed grid dx cells right and dy cells down, cells moved off the grid being
+     * dropped
+     */
+    static void shift(long [] grid, int dx, int dy, long [] shifted, int offset) {
+        for (int gy = 0; gy < GRID_HEIGHT; gy++) {
+            int from = gy - dy;
+            long bits = 0;
+            if (from >= 0 && from < GRID_HEIGHT) {
+                bits = (grid[from >>> 1] >>> ((from & 1) * GRID_WIDTH)) & ROW_MASK;
+                bits = dx >= 0 ? (bits << dx) & ROW_MASK : bits >>> -dx;
+            }
+            if ((gy & 1) == 0)
+                shifted[offset + (gy >>> 1)] = bits;
+            else
+                shifted[offset + (gy >>> 1)] |= bits << GRID_WIDTH;
+        }
+    }//shift
+}//TemplateMatcher
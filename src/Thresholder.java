@@ -0,0 +1,32 @@
+/**
+ * The "Thresholder" interface is a global thresholding strategy, which picks one threshold for a whole gray
+ * image from its statistics. Each of the thresholding methods in "Thresholding" is available here, so a set
+ * of them can be handed to "Thresholding.votingSystem" as voters.
+ *
+ * @author Daniel Speiser
+ * OCR Project: License Plate Reader
+ *
+ */
+public interface Thresholder {
+    /**
+     * This "threshold" method picks the threshold of an image. Pixels at or below it are foreground.
+     * @param statistics - statistics of the gray image
+     * @return int - threshold (0-255)
+     */
+    int threshold(ImageStatistics statistics);
+
+    Thresholder MAXIMUM_ENTROPY = statistics -> new Thresholding().maximumEntropyThreshold(statistics);
+    Thresholder MEAN = statistics -> (int) statistics.getMean();
+    Thresholder OTSU = statistics -> new Thresholding().otsuThreshold(statistics);
+    Thresholder MEDIAN = statistics -> (int) statistics.getMedian();
+    Thresholder MINIMUM_ERROR = statistics -> new Thresholding().minimumErrorThreshold(statistics);
+
+    /**
+     * This "fixed" method returns a strategy that always picks the same threshold.
+     * @param threshold - threshold (0-255)
+     * @return Thresholder - fixed threshold
+     */
+    static Thresholder fixed(int threshold) {
+        return statistics -> threshold;
+    }//fixed
+}//Thresholder
@@ -1,5 +1,6 @@
 import javax.imageio.ImageIO;
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
 import java.io.File;
 import java.util.Arrays;
 /**
@@ -13,6 +14,9 @@ import java.util.Arrays;
  *
  */
 public class Thresholding extends BaseMethods {
+    //builds histograms in parallel for large images, shared by every instance
+    private static final HistogramBuilder histogramBuilder = new HistogramBuilder();
+
     /**
      * This "grayToMono" method converts a grayscale image to monochrome, using the specified threshold
      * @param image - input grayscale image
@@ -24,6 +28,21 @@ public class Thresholding extends BaseMethods {
         //get image height and width for traversal
         int width = image.getWidth();
         int height = image.getHeight();
+        byte[] gray = getGrayData(image);
+        if (gray != null) {
+            //8 bit gray input: pack 8 pixels per byte straight into the binary raster (bit set = white)
+            byte[] mono = ((DataBufferByte) result.getRaster().getDataBuffer()).getData();
+            int monoStride = (width + 7) / 8;
+            for (int y = 0; y < height; y++) {
+                int in = y * width;
+                int out = y * monoStride;
+                for (int x = 0; x < width; x++) {
+                    if ((gray[in + x] & 0xFF) > threshold)
+                        mono[out + (x >> 3)] |= 0x80 >>> (x & 7);
+                }//for 2
+            }//for 1
+            return result;
+        }
         //traverse through image, retrieve a pixel's RGB value
         for (int i = 0; i < width; i++) {
             for (int j = 0; j < height; j++) {
@@ -37,6 +56,29 @@ public class Thresholding extends BaseMethods {
         }//for 1
         return result;
     }//toGrayMethodMeanMethod
+    /**
+     * This "grayToBinary" method converts a grayscale image to a packed binary image, using the specified threshold.
+     * Pixels at or below the threshold are foreground (black), the same as in grayToMono.
+     * @param image - input grayscale image
+     * @param threshold - threshold input
+     * @return BinaryImage - binary image of the original
+     */
+    public BinaryImage grayToBinary(GrayImage image, int threshold) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        BinaryImage result = new BinaryImage(width, height);
+        byte[] gray = image.getData();
+        long[] words = result.getWords();
+        for (int y = 0; y < height; y++) {
+            int in = image.rowOffset(y);
+            int out = result.rowOffset(y);
+            for (int x = 0; x < width; x++) {
+                if ((gray[in + x] & 0xFF) <= threshold)
+                    words[out + (x >>> 6)] |= 1L << x;
+            }//for 2
+        }//for 1
+        return result;
+    }//grayToBinary
     /**
      * This "GrayToMonoMeanMethod" method converts a grayscale image to monochrome, using the mean method
      * @param image - input grayscale image
@@ -89,16 +131,26 @@ public class Thresholding extends BaseMethods {
      * @return double - sum of the array
      */
     public double sum (BufferedImage image) {
-        double sum = 0.0; //initial sum
-        int width = image.getWidth();
-        int height = image.getHeight();
         //given that the image is in grayscale, we know that
-        //r = g = b, so we can use the unsigned int representation
-        //of the converted grayscale value
-        for (int i = 0; i < width; i++) {
-            for (int j = 0; j < height; j++) {
-                sum += getPixelValue(image, i, j);
-            }
+        //r = g = b, so the sum is read off the histogram of the gray values
+        int [] histogram = histogram(image);
+        long sum = 0; //initial sum
+        for (int i = 0; i < 256; i++)
+            sum += (long) i * histogram[i];
+        return sum;
+    }//sum
+    /**
+     * This "sum" method calculates and returns the sum of the pixel values within a gray image
+     * @param image - image of pixels
+     * @return double - sum of the pixel values
+     */
+    public double sum (GrayImage image) {
+        long sum = 0; //initial sum
+        byte[] gray = image.getData();
+        for (int y = 0; y < image.getHeight(); y++) {
+            int offset = image.rowOffset(y);
+            for (int x = 0; x < image.getWidth(); x++)
+                sum += gray[offset + x] & 0xFF;
         }
         return sum;
     }//sum
@@ -162,6 +214,22 @@ public class Thresholding extends BaseMethods {
     public double average (BufferedImage image) {
         return sum(image)/(numPixels(image));
     }//average
+    /**
+     * This "average" method calculates the "average", or mean value of a gray image
+     * @param image
+     * @return double - average
+     */
+    public double average (GrayImage image) {
+        return sum(image)/(image.getNumPixels());
+    }//average
+    /**
+     * This "average" method returns the "average", or mean value of an image from its statistics
+     * @param statistics - statistics of the image
+     * @return double - average
+     */
+    public double average (ImageStatistics statistics) {
+        return statistics.getMean();
+    }//average
     /**
      * This "averageBackground" method calculates the "average", or mean value of the background of an image
      * @param image
@@ -180,27 +248,29 @@ public class Thresholding extends BaseMethods {
         return sumForeground(image, threshold)/numPixelsInForeground(image, threshold);
     }//average
 
+    /**
+     * This "median" method calculates the median pixel value of an image from its histogram
+     * @param image
+     * @return double - median, halfway between the two middle values for an even number of pixels
+     */
     public double median(BufferedImage image) {
-        int numPixels = numPixels(image);
-        int height = image.getHeight();
-        int width = image.getWidth();
-
-        int [] pixels = new int[numPixels];
-
-        for (int i = 0; i < height; i++) {
-            for (int j = 0; j < width; j++) {
-                pixels[i * width + j] = getPixelValue(image, j, i);
-            }
-        }
-
-        Arrays.sort(pixels);
-
-        int median = numPixels / 2;
-
-        if (numPixels % 2 == 1)
-            return pixels[median];
-
-        return (pixels[median-1] + pixels[median]) / 2.0;
+        return median(new ImageStatistics(histogram(image)));
+    }
+    /**
+     * This "median" method calculates the median pixel value of a gray image
+     * @param image
+     * @return double - median, halfway between the two middle values for an even number of pixels
+     */
+    public double median(GrayImage image) {
+        return median(new ImageStatistics(image));
+    }
+    /**
+     * This "median" method returns the median pixel value of an image from its statistics
+     * @param statistics - statistics of the image
+     * @return double - median, halfway between the two middle values for an even number of pixels
+     */
+    public double median(ImageStatistics statistics) {
+        return statistics.getMedian();
     }
     /**
      * This "numElements" method returns the number of elements in an array
@@ -257,6 +327,14 @@ public class Thresholding extends BaseMethods {
         }//for1
         return variance / numPixels(image);
     }//variance
+    /**
+     * This "variance" method returns the variance of the pixels within a gray image
+     * @param image - given image
+     * @return double - variance
+     */
+    public double variance (GrayImage image) {
+        return new ImageStatistics(image).getVariance();
+    }//variance
     /**
      * This "standardDeviation" method returns the standard deviation of a given array
      * @param array - given values
@@ -273,6 +351,14 @@ public class Thresholding extends BaseMethods {
     public double standardDeviation (BufferedImage image) {
         return Math.sqrt(variance(image));
     }//standardDeviation
+    /**
+     * This "standardDeviation" method returns the standard deviation of a gray image
+     * @param image - given image
+     * @return double - standard deviation of the values
+     */
+    public double standardDeviation (GrayImage image) {
+        return Math.sqrt(variance(image));
+    }//standardDeviation
     /**
      * This "varianceBackground" method returns the variance of the values within the background of an image
      * @param array - array of pixel values
@@ -393,16 +479,17 @@ public class Thresholding extends BaseMethods {
      * @return double[] - histogram
      */
     public int [] histogram (BufferedImage image) {
-        //creates an array of size 256, using 256 colors
-        int [] histogram = new int [256];
-        int width = image.getWidth();
-        int height = image.getHeight();
-        for (int i = 0; i < width; i++) {
-            for (int j = 0; j < height; j++) {
-                histogram[getPixelValue(image, i, j)]++;
-            }//for2
-        }//for1
-        return histogram;
+        //row by row, in parallel for large images
+        return histogramBuilder.histogram(image);
+    }//histogram
+    /**
+     * This "histogram" method takes in a gray image and creates a histogram of its pixel values
+     * @param image
+     * @return int[] - histogram
+     */
+    public int [] histogram (GrayImage image) {
+        //row by row, in parallel for large images
+        return histogramBuilder.histogram(image);
     }//histogram
     /**
      * This "getNormalizedHistogram" method takes in a histogram, and returns a normalized histogram,
@@ -681,27 +768,51 @@ public class Thresholding extends BaseMethods {
         return threshold;
     }//errorFitnessValues
     /**
-     * This "minErrorFitnessValue" method calculates the error values of a given image (using the histogram of the image)
-     * @param histogram - histogram of the image
-     * .
-     * .
-     * .
-     * @return double - error fitness values
+     * This "minErrorFitnessValue" method calculates the minimum error threshold of a given image (using the histogram of the image)
+     * @param image - grayscale image
+     * @return int - minimum error threshold
      */
     public int minErrorFitnessValue(BufferedImage image) {
-        int [] histogram = histogram(image);
-        double temp, probBack, meanBack, varBack, probFor, meanFor, varFor, mean = average(image);
-        double min = Math.pow(GMM(0, probabilityBackground(histogram, 0), meanBackground(image, histogram, 0), varianceBackground(image, 0, mean), probabilityForeground(histogram, 0), meanForeground(image, histogram, 0), varianceForeground(image, 0, mean)) - histogram[0], 2);
+        return minimumErrorThreshold(new ImageStatistics(histogram(image)));
+    }//minErrorFitnessValue
+    /**
+     * This "minimumErrorThreshold" method calculates the Kittler-Illingworth minimum error threshold, which fits a
+     * gaussian to the background and one to the foreground (a gaussian mixture model) for every threshold, and
+     * picks the threshold where the fitted mixture has the smallest classification error:
+     *
+     * J(t) = 1 + 2 * (Pb * ln(sigmaB) + Pf * ln(sigmaF)) - 2 * (Pb * ln(Pb) + Pf * ln(Pf))
+     *
+     * The class probabilities and variances come from the cumulative moments of the statistics, so each
+     * threshold costs O(1). Thresholds that leave a class empty or with zero variance are skipped.
+     *
+     * Found on: J. Kittler and J. Illingworth, "Minimum error thresholding", Pattern Recognition 19(1), 1986
+     *
+     * @param statistics - statistics of the image
+     * @return int - minimum error threshold
+     */
+    public int minimumErrorThreshold(ImageStatistics statistics) {
+        int numPixels = statistics.getNumPixels();
+        double min = Double.POSITIVE_INFINITY, temp;
         int threshold = 0;
-        for (int i = 1; i < 256; i++) {
-            probBack = probabilityBackground(histogram, i);
-            meanBack = meanBackground(image, histogram, i);
-            varBack = varianceBackground(image, i, mean);
-            probFor = probabilityForeground(histogram, i);
-            meanFor = meanForeground(image, histogram, i);
-            varFor = varianceForeground(image, i, mean);
 
-            temp = Math.pow(GMM(i, probBack, meanBack, varBack, probFor, meanFor, varFor) - histogram[i], 2);
+        for (int i = 0; i < 255; i++) {
+            int numBackground = statistics.numPixelsInBackground(i);
+            int numForeground = numPixels - numBackground;
+            if (numBackground == 0)
+                continue;
+            if (numForeground == 0)
+                break;
+
+            double varianceBackground = statistics.varianceBackground(i);
+            double varianceForeground = statistics.varianceForeground(i);
+            if (varianceBackground <= 0.0 || varianceForeground <= 0.0)
+                continue;
+
+            double probabilityBackground = (double) numBackground / numPixels;
+            double probabilityForeground = (double) numForeground / numPixels;
+            //P * ln(sigma) = P * ln(sigma^2) / 2
+            temp = 1 + probabilityBackground * Math.log(varianceBackground) + probabilityForeground * Math.log(varianceForeground)
+                    - 2 * (probabilityBackground * Math.log(probabilityBackground) + probabilityForeground * Math.log(probabilityForeground));
 
             if (temp < min) {
                 min = temp;
@@ -709,7 +820,7 @@ public class Thresholding extends BaseMethods {
             }
         }//for
         return threshold;
-    }//errorFitnessValues
+    }//minimumErrorThreshold
     /**
      * This "entropyBackground" method returns the entropy value of the background of an image,
      * calculated by a given threshold value.
@@ -734,6 +845,30 @@ public class Thresholding extends BaseMethods {
 
         return 0 - entropy;
     }//entropyBackground
+    /**
+     * This "entropyBackground" method returns the entropy value of the background of a histogram,
+     * calculated by a given threshold value.
+     * @param histogram - image histogram
+     * @param threshold - to classify what is background, and what is foreground.
+     * @return double - entropy of the background
+     */
+    public double entropyBackground (int [] histogram, int threshold) {
+        double entropy = 0.0, normalizedSum = 0.0;
+        double [] normalizedHistogram = getNormalizedHistogram(histogram);
+
+        //calculates the normalized sum until the given threshold
+        for (int i = 0; i <= threshold; i++) {
+            normalizedSum += normalizedHistogram[i];
+        }//for
+
+        for (int i = 0; i <= threshold; i++) {
+            //otherwise -infinity causes result to be NaN (not a number)
+            if (normalizedHistogram[i] > 0.0)
+                entropy += (normalizedHistogram[i] / normalizedSum) * Math.log(normalizedHistogram[i] / normalizedSum);
+        }//for
+
+        return 0 - entropy;
+    }//entropyBackground
     /**
      * This "entropyForeground" method returns the entropy value of the foreground of an image,
      * calculated by a given threshold value.
@@ -756,24 +891,112 @@ public class Thresholding extends BaseMethods {
 
         return 0 - entropy;
     }//entropyForeground
+    /**
+     * This "entropyForeground" method returns the entropy value of the foreground of a histogram,
+     * calculated by a given threshold value.
+     * @param histogram - image histogram
+     * @param threshold - to classify what is background, and what is foreground.
+     * @return double - entropy of the foreground
+     */
+    public double entropyForeground (int [] histogram, int threshold) {
+        double entropy = 0.0, normalizedSum = 0.0;
+        double [] normalizedHistogram = getNormalizedHistogram(histogram);
+        //calculates the normalized sum from the given threshold
+        for (int i = threshold + 1; i < 256; i++) {
+            normalizedSum += normalizedHistogram[i];
+        }//for
+
+        for (int i = threshold + 1; i < 256; i++) {
+            //otherwise -infinity causes result to be NaN (not a number)
+            if (normalizedHistogram[i] > 0.0)
+                entropy += (normalizedHistogram[i] / normalizedSum) * Math.log(normalizedHistogram[i] / normalizedSum);
+        }//for
+
+        return 0 - entropy;
+    }//entropyForeground
     /**
      * This "maximumEntropyThreshold" method calculates the maximum entropy value from any of the possible threshold values.
      * @return int - threshold value for the maximum entropy
      */
     public int maximumEntropyThreshold(BufferedImage image) {
-        int threshold = 0;
-        double max = entropyBackground(image, 0) + entropyForeground(image, 0), temp;
+        return maximumEntropyThreshold(histogram(image));
+    }//maximumEntropyThreshold
+    /**
+     * This "maximumEntropyThreshold" method calculates the maximum entropy value from any of the possible threshold
+     * values of a gray image.
+     * @return int - threshold value for the maximum entropy
+     */
+    public int maximumEntropyThreshold(GrayImage image) {
+        return maximumEntropyThreshold(histogram(image));
+    }//maximumEntropyThreshold
+    /**
+     * This "maximumEntropyThreshold" method calculates the maximum entropy threshold of an image from its statistics.
+     * @param statistics - statistics of the image
+     * @return int - threshold value for the maximum entropy
+     */
+    public int maximumEntropyThreshold(ImageStatistics statistics) {
+        return maximumEntropyThreshold(statistics.getHistogram());
+    }//maximumEntropyThreshold
+    /**
+     * This "maximumEntropyThreshold" method calculates the maximum entropy value from any of the possible threshold
+     * values of an image histogram. It gives the same threshold as summing entropyBackground and entropyForeground
+     * for every threshold, but uses running sums so the whole search is linear in the number of gray levels.
+     *
+     * With p the normalized histogram and P the probability of the background (or foreground), the entropy
+     * -sum((p / P) * ln(p / P)) of either class is ln(P) - sum(p * ln(p)) / P.
+     *
+     * @param histogram - image histogram
+     * @return int - threshold value for the maximum entropy
+     */
+    public int maximumEntropyThreshold(int [] histogram) {
+        double [] normalizedHistogram = getNormalizedHistogram(histogram);
+        //cumulative probability and cumulative p * ln(p) of the background (0 to i) and of the foreground (i + 1 to 255)
+        double [] probabilityBackground = new double[256], entropySumBackground = new double[256];
+        double [] probabilityForeground = new double[256], entropySumForeground = new double[256];
+        double probability = 0.0, entropySum = 0.0;
+        for (int i = 0; i < 256; i++) {
+            probability += normalizedHistogram[i];
+            //otherwise -infinity causes result to be NaN (not a number)
+            if (normalizedHistogram[i] > 0.0)
+                entropySum += normalizedHistogram[i] * Math.log(normalizedHistogram[i]);
+            probabilityBackground[i] = probability;
+            entropySumBackground[i] = entropySum;
+        }//for
+        probability = 0.0;
+        entropySum = 0.0;
+        for (int i = 255; i > 0; i--) {
+            probability += normalizedHistogram[i];
+            if (normalizedHistogram[i] > 0.0)
+                entropySum += normalizedHistogram[i] * Math.log(normalizedHistogram[i]);
+            probabilityForeground[i - 1] = probability;
+            entropySumForeground[i - 1] = entropySum;
+        }//for
 
-        for (int i = 1; i < 256; i++) {
-            temp = entropyBackground(image, i) + entropyForeground(image, i);
+        int threshold = 0;
+        double max = 0.0, temp;
+        for (int i = 0; i < 256; i++) {
+            temp = classEntropy(probabilityBackground[i], entropySumBackground[i]) + classEntropy(probabilityForeground[i], entropySumForeground[i]);
 
-            if (temp > max) {
+            //differences within rounding error are ties, which keep the lowest threshold like the direct sums do
+            if (i == 0 || temp > max + 1e-12 * Math.abs(max)) {
                 max = temp;
                 threshold = i;
             }
         }
         return threshold;
     }//maximumEntropyThreshold
+    /**
+     * This "classEntropy" method returns the entropy of the background or foreground from its probability
+     * and its sum of p * ln(p) (an empty class has no entropy).
+     * @param probability - probability of the class
+     * @param entropySum - sum of p * ln(p) over the class
+     * @return double - entropy of the class
+     */
+    private double classEntropy(double probability, double entropySum) {
+        if (probability <= 0.0)
+            return 0.0;
+        return Math.log(probability) - entropySum / probability;
+    }//classEntropy
     /**
      * This "otsu" method calculates the variance between classes (intra class variance between foreground and background)
      * @param histogram - image histogram
@@ -794,12 +1017,36 @@ public class Thresholding extends BaseMethods {
      * It was found on: http://zerocool.is-a-geek.net/java-image-binarization/
      */
     public int otsuThreshold(BufferedImage image) {
+        return otsuThreshold(histogram(image));
+    }
+    /**
+     * This "otsuThreshold" method calculates the best Otsu threshold of a gray image
+     * @param image - grayscale image
+     * @return int - threshold
+     */
+    public int otsuThreshold(GrayImage image) {
+        return otsuThreshold(histogram(image));
+    }
+    /**
+     * This "otsuThreshold" method calculates the best Otsu threshold of an image from its statistics
+     * @param statistics - statistics of the image
+     * @return int - threshold
+     */
+    public int otsuThreshold(ImageStatistics statistics) {
+        return otsuThreshold(statistics.getHistogram());
+    }
+    /**
+     * This "otsuThreshold" method calculates the best Otsu threshold from an image histogram
+     * @param histogram - image histogram
+     * @return int - threshold
+     */
+    public int otsuThreshold(int [] histogram) {
+        int total = sum(histogram);
 
-        int[] histogram = histogram(image);
-        double[] hist2 = getNormalizedHistogram(histogram);
-        int total = image.getHeight() * image.getWidth();
-
-        float sum = (float)sum(image);
+        long histogramSum = 0;
+        for (int i = 0; i < 256; i++)
+            histogramSum += (long) i * histogram[i];
+        float sum = (float) histogramSum;
 
         float sumB = 0;
         int wB = 0;
@@ -895,5 +1142,194 @@ public class Thresholding extends BaseMethods {
 
         return result;
     }//votingSystem
-}//Thresholding
+    /**
+     * This "votingSystem" method thresholds a gray image with several global thresholds and votes on the result,
+     * without creating an image per threshold. A pixel is foreground for every threshold at or above its value, so
+     * the votes for a pixel only go down as its value goes up, and the majority is foreground exactly up to one
+     * "voting threshold". The voted image is then a single grayToBinary pass with that threshold.
+     *
+     * A pixel needs a strict majority, so a tie goes to the background. With an odd number of voters there are no
+     * ties, but with an even number a pixel needs one vote more than half: 4 of the 6 voters of Main (with the
+     * minimum error threshold as the sixth), where it needed 3 of 5 before. That moves the voted image towards the
+     * background for pixels the voters split on evenly; give the voters unequal weights to break ties instead.
+     * @param image - input grayscale image
+     * @param thresholds - thresholds of the voters
+     * @return BinaryImage - voted binary image
+     */
+    public BinaryImage votingSystem(GrayImage image, int [] thresholds) {
+        double [] weights = new double[thresholds.length];
+        Arrays.fill(weights, 1.0);
+        return votingSystem(image, thresholds, weights);
+    }//votingSystem
+    /**
+     * This "votingSystem" method thresholds a gray image with several weighted global thresholds and votes on the
+     * result in one pass. A pixel is foreground when the weights of the thresholds it is foreground for add up to
+     * more than half of the total weight, so a pixel at exactly half is background.
+     * @param image - input grayscale image
+     * @param thresholds - thresholds of the voters
+     * @param weights - weight of each voter's vote
+     * @return BinaryImage - voted binary image
+     */
+    public BinaryImage votingSystem(GrayImage image, int [] thresholds, double [] weights) {
+        return grayToBinary(image, votingThreshold(thresholds, weights));
+    }//votingSystem
+    /**
+     * This "votingSystem" method runs each thresholding strategy on the statistics of a gray image, and votes on
+     * the results in one pass, each strategy having one vote (an even number of strategies can tie, see
+     * votingSystem(GrayImage, int[])).
+     * @param image - input grayscale image
+     * @param statistics - statistics of the image
+     * @param thresholders - thresholding strategies
+     * @return BinaryImage - voted binary image
+     */
+    public BinaryImage votingSystem(GrayImage image, ImageStatistics statistics, Thresholder... thresholders) {
+        int [] thresholds = new int[thresholders.length];
+        for (int i = 0; i < thresholders.length; i++)
+            thresholds[i] = thresholders[i].threshold(statistics);
+        return votingSystem(image, thresholds);
+    }//votingSystem
+    /**
+     * This "votingThreshold" method returns the highest gray value that more than half of the (weighted) votes
+     * put in the foreground, which is the weighted median of the thresholds (the lower one on a tie, exactly half
+     * the weight not being a majority).
+     * @param thresholds - thresholds of the voters
+     * @param weights - weight of each voter's vote
+     * @return int - voting threshold, -1 if no gray value wins the vote (all background)
+     */
+    public int votingThreshold(int [] thresholds, double [] weights) {
+        if (thresholds.length != weights.length)
+            throw new IllegalArgumentException("Need one weight per threshold");
+        double totalWeight = 0.0;
+        for (int i = 0; i < weights.length; i++)
+            totalWeight += weights[i];
 
+        //votes for each gray value, accumulated from the top: value v is voted foreground by every threshold >= v
+        double [] votes = new double[257];
+        for (int i = 0; i < thresholds.length; i++) {
+            if (thresholds[i] >= 0)
+                votes[Math.min(thresholds[i], 255)] += weights[i];
+        }//for
+        for (int v = 255; v >= 0; v--) {
+            votes[v] += votes[v + 1];
+            if (votes[v] > totalWeight / 2)
+                return v;
+        }//for
+        return -1;
+    }//votingThreshold
+    /**
+     * This "votingSystem" method combines several binary images of the same size, a pixel being
+     * foreground in the result when it is foreground in more than half of the images. The votes are counted
+     * 64 pixels at a time: each word of the inputs is added into a bit-sliced counter (bit j of the vote count
+     * of every pixel of a word is held in counter word j), then the counter is compared with the majority in
+     * the same word-wide way. Any binarisations can be voted this way, not only global thresholds.
+     * @param images - binary images to vote on
+     * @return BinaryImage - voted binary image
+     */
+    public BinaryImage votingSystem(BinaryImage [] images) {
+        int width = images[0].getWidth();
+        int height = images[0].getHeight();
+        //verify same image dimensions, otherwise this method will fail
+        for (int i = 1; i < images.length; i++) {
+            if (images[i].getWidth() != width || images[i].getHeight() != height)
+                throw new IllegalArgumentException("Inconsistent Image Inputs!!!");
+        }
+
+        BinaryImage result = new BinaryImage(width, height);
+        long [] resultWords = result.getWords();
+        long [][] words = new long[images.length][];
+        for (int k = 0; k < images.length; k++)
+            words[k] = images[k].getWords();
+
+        int majority = images.length / 2 + 1;
+        int numSlices = 32 - Integer.numberOfLeadingZeros(images.length);
+        long [] count = new long[numSlices];
+        long carry, temp, greater, equal;
+
+        for (int i = 0; i < resultWords.length; i++) {
+            //add the word of each image to the counter, a ripple carry add of one bit per pixel
+            for (int j = 0; j < numSlices; j++)
+                count[j] = 0;
+            for (int k = 0; k < words.length; k++) {
+                carry = words[k][i];
+                for (int j = 0; j < numSlices && carry != 0; j++) {
+                    temp = count[j] & carry;
+                    count[j] ^= carry;
+                    carry = temp;
+                }//for 3
+            }//for 2
+
+            //count >= majority, comparing from the highest bit down
+            greater = 0;
+            equal = -1L;
+            for (int j = numSlices - 1; j >= 0; j--) {
+                if ((majority & (1 << j)) != 0)
+                    equal &= count[j];
+                else {
+                    greater |= equal & count[j];
+                    equal &= ~count[j];
+                }
+            }//for 2
+            //padding bits have no votes and majority is at least 1, so they stay clear
+            resultWords[i] = greater | equal;
+        }//for 1
+
+        return result;
+    }//votingSystem
+    /**
+     * This "adaptiveMeanThreshold" method converts a grayscale image to binary with a local threshold: a pixel is
+     * foreground when it is at or below the mean of the square window around it minus an offset, so uneven
+     * lighting across a plate does not move characters into the background. The window sums are kept as running
+     * column sums, updated once per row, and a running sum along the row, so each pixel costs the same whatever
+     * the window size. The windows are clipped at the image borders.
+     * @param image - input grayscale image
+     * @param radius - half the window size, the window being (2 * radius + 1) pixels square
+     * @param offset - how far below the local mean a pixel must be to be foreground
+     * @return BinaryImage - binary image
+     */
+    public BinaryImage adaptiveMeanThreshold(GrayImage image, int radius, int offset) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        BinaryImage result = new BinaryImage(width, height);
+        byte[] gray = image.getData();
+        long[] words = result.getWords();
+        //sum of each column over the rows of the current window
+        int[] columnSums = new int[width];
+
+        for (int y = 0; y < Math.min(radius, height); y++) {
+            int in = image.rowOffset(y);
+            for (int x = 0; x < width; x++)
+                columnSums[x] += gray[in + x] & 0xFF;
+        }
+        for (int y = 0; y < height; y++) {
+            //slide the window down to rows y - radius to y + radius
+            if (y + radius < height) {
+                int in = image.rowOffset(y + radius);
+                for (int x = 0; x < width; x++)
+                    columnSums[x] += gray[in + x] & 0xFF;
+            }
+            if (y - radius - 1 >= 0) {
+                int in = image.rowOffset(y - radius - 1);
+                for (int x = 0; x < width; x++)
+                    columnSums[x] -= gray[in + x] & 0xFF;
+            }
+            int rows = Math.min(y + radius, height - 1) - Math.max(y - radius, 0) + 1;
+
+            long windowSum = 0;
+            for (int x = 0; x < Math.min(radius, width); x++)
+                windowSum += columnSums[x];
+            int in = image.rowOffset(y);
+            int out = result.rowOffset(y);
+            for (int x = 0; x < width; x++) {
+                if (x + radius < width)
+                    windowSum += columnSums[x + radius];
+                if (x - radius - 1 >= 0)
+                    windowSum -= columnSums[x - radius - 1];
+                int columns = Math.min(x + radius, width - 1) - Math.max(x - radius, 0) + 1;
+                //value <= sum / area - offset, without dividing
+                if (((gray[in + x] & 0xFF) + offset) * (long) (rows * columns) <= windowSum)
+                    words[out + (x >>> 6)] |= 1L << x;
+            }//for 2
+        }//for 1
+        return result;
+    }//adaptiveMeanThreshold
+}//Thresholding
@@ -1,47 +1,94 @@
 import javax.imageio.ImageIO;
 import java.awt.image.BufferedImage;
 import java.io.File;
+import java.io.IOException;
 import java.util.HashMap;
 
 public class Training extends BaseMethods {
 
-    public static HashMap<String, double[]> buildTrainingSet(File[] files) {
+    /**
+     * This "buildTrainingSet" method extracts the features of the character of each training image. Each image
+     * holds one character, named by the file name ("A.png" is an "A"), which is its largest foreground
+     * component.
+     * @param files - training images
+     * @param extractor - feature extractor
+     * @return HashMap of character names to feature rows
+     * @throws IOException if an image cannot be read or holds no character, so no partial set is ever stored
+     */
+    public static HashMap<String, double[]> buildTrainingSet(File[] files, FeatureExtractor extractor) throws IOException {
+        HashMap<String, double[]> trainingSet = new HashMap<String, double[]>();
+        for (int i = 0; i < files.length; i++) {
+            ComponentStatistics components = measureImage(files[i]);
+            trainingSet.put(characterName(files[i]), extractor.extract(components, new int[] {largestForeground(components, files[i])}, null));
+        }
+        return trainingSet;
+    }//buildTrainingSet
+
+    /**
+     * This "buildTemplates" method resamples the character of each training image to a template grid
+     * (see TemplateMatcher)
+     * @param files - training images
+     * @return HashMap of character names to packed templates
+     * @throws IOException if an image cannot be read or holds no character
+     */
+    public static HashMap<String, long[]> buildTemplates(File[] files) throws IOException {
+        HashMap<String, long[]> templates = new HashMap<String, long[]>();
+        for (int i = 0; i < files.length; i++) {
+            ComponentStatistics components = measureImage(files[i]);
+            templates.put(characterName(files[i]),
+                    TemplateMatcher.resample(components, largestForeground(components, files[i]), new long[TemplateMatcher.WORDS], 0));
+        }
+        return templates;
+    }//buildTemplates
+
+    /**
+     * This "measureImage" method thresholds a training image like a plate and measures its components
+     * @param file - training image
+     * @return ComponentStatistics - statistics of its components
+     */
+    private static ComponentStatistics measureImage(File file) throws IOException {
         GrayscaleConverter gc = new GrayscaleConverter();
         Thresholding th = new Thresholding();
         ConnectedComponents cc = new ConnectedComponents();
 
-        try {
-            for (int i = 0; i < files.length; i++) {
-                BufferedImage image = ImageIO.read(files[i]); //read in original image
-                BufferedImage grayscale = gc.toGrayMethod2(image);
-
-                int maxEntropy = th.maximumEntropyThreshold(grayscale);
-                int mean = (int) th.average(grayscale);
-                int otsu = th.otsuThreshold(grayscale);
-                int median = (int) th.median(grayscale);
-
-                System.out.println("Threshold values for " + files[i].getName() + ":\nMean: " + mean + "\nMedian: " + median + "\nMax Entropy: " + maxEntropy + "\nOtsu: " + otsu + "\nFixed: " + 127);
-
-                BufferedImage[] monochromeImages = new BufferedImage[5];
-                monochromeImages[0] = th.grayToMono(grayscale, maxEntropy);
-                monochromeImages[1] = th.grayToMono(grayscale, mean);
-                monochromeImages[2] = th.grayToMono(grayscale, otsu);
-                monochromeImages[3] = th.grayToMono(grayscale, median);
-                monochromeImages[4] = th.grayToMono(grayscale, 127);
-
-                BufferedImage votedMonochrome = th.votingSystem(monochromeImages);
+        BufferedImage image = ImageIO.read(file); //read in original image
+        if (image == null)
+            throw new IOException(file + " is not an image");
+        GrayImage grayscale = gc.toGrayImage(image, GrayscaleKernel.LUMINOSITY);
+        ImageStatistics statistics = new ImageStatistics(grayscale); //one scan, shared by every threshold method
 
-                int[] connComps = cc.getConnectedComponents(votedMonochrome);
+        int maxEntropy = th.maximumEntropyThreshold(statistics);
+        int mean = (int) th.average(statistics);
+        int otsu = th.otsuThreshold(statistics);
+        int median = (int) th.median(statistics);
+        int minError = th.minimumErrorThreshold(statistics);
 
-                connComps = cc.renameComponents(connComps);
+        System.out.println("Threshold values for " + file.getName() + ":\nMean: " + mean + "\nMedian: " + median + "\nMax Entropy: " + maxEntropy + "\nOtsu: " + otsu + "\nMin Error: " + minError + "\nFixed: " + 127);
+        BinaryImage votedMonochrome = th.votingSystem(grayscale, new int[] {maxEntropy, mean, otsu, median, 127, minError}); //one pass, no image per threshold
 
+        return cc.measureComponents(votedMonochrome); //labels and measures every component in one pass
+    }//measureImage
 
-            }
-        } catch (Exception e) {
-            e.printStackTrace();
+    /**
+     * @return int - label of the largest foreground component
+     */
+    private static int largestForeground(ComponentStatistics components, File file) throws IOException {
+        int character = -1;
+        for (int c = 0; c < components.getNumComponents(); c++) {
+            if (components.isForeground(c) && (character < 0 || components.getArea(c) > components.getArea(character)))
+                character = c;
         }
+        if (character < 0)
+            throw new IOException(file + " holds no character");
+        return character;
+    }//largestForeground
 
-        //temporary
-        return null;
-    }
-}
\ No newline at end of file
+    /**
+     * @return String - character name of a training image, its file name without the extension
+     */
+    private static String characterName(File file) {
+        String name = file.getName();
+        int extension = name.lastIndexOf('.');
+        return extension > 0 ? name.substring(0, extension) : name;
+    }//characterName
+}//Training
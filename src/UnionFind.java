@@ -0,0 +1,80 @@
+import java.util.Arrays;
+
+/**
+ * The "UnionFind" class is a disjoint set forest over the labels 0, 1, 2, ..., held in flat int arrays. It is
+ * used by the connected components labelling to record that two provisional labels belong to the same
+ * component. "find" compresses the path it walks (each node is pointed at its grandparent) and "union" hangs
+ * the lower ranked tree under the higher one, which keeps the trees almost flat.
+ *
+ * @author Daniel Speiser
+ * OCR Project: License Plate Reader
+ *
+ */
+public class UnionFind {
+    private int [] parent;
+    private byte [] rank;
+    private int size;
+
+    /**
+     * Creates an empty forest.
+     * @param capacity - expected number of labels, the arrays grow past it if needed
+     */
+    public UnionFind(int capacity) {
+        parent = new int[Math.max(capacity, 16)];
+        rank = new byte[parent.length];
+    }
+
+    /**
+     * @return int - number of labels created so far
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * This "makeSet" method creates a new label, in a set of its own
+     * @return int - the new label
+     */
+    public int makeSet() {
+        if (size == parent.length) {
+            parent = Arrays.copyOf(parent, size * 2);
+            rank = Arrays.copyOf(rank, size * 2);
+        }
+        parent[size] = size;
+        return size++;
+    }
+
+    /**
+     * This "find" method returns the root label of the set holding a label
+     * @param label - label
+     * @return int - root of its set
+     */
+    public int find(int label) {
+        while (parent[label] != label) {
+            parent[label] = parent[parent[label]];
+            label = parent[label];
+        }
+        return label;
+    }
+
+    /**
+     * This "union" method merges the sets holding two labels
+     * @param a - first label
+     * @param b - second label
+     * @return int - root of the merged set
+     */
+    public int union(int a, int b) {
+        a = find(a);
+        b = find(b);
+        if (a == b)
+            return a;
+        if (rank[a] < rank[b]) {
+            parent[a] = b;
+            return b;
+        }
+        parent[b] = a;
+        if (rank[a] == rank[b])
+            rank[a]++;
+        return a;
+    }
+}//UnionFind